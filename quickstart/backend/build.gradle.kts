@@ -16,6 +16,7 @@ dependencies {
     implementation(Deps.springBoot.jdbc)
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.6.0")
     implementation("org.openapitools:jackson-databind-nullable:0.2.6")
+    implementation("com.github.ben-manes.caffeine:caffeine:3.1.8")
 
     implementation(Deps.transcode.codegenJavaRuntime)
     implementation(Deps.transcode.protoJava)
@@ -40,7 +41,8 @@ dependencies {
     implementation(Deps.springBoot.oauth2Client)
     implementation(Deps.springBoot.oauth2ResourceServer)
     implementation(Deps.springBoot.security)
-    runtimeOnly("org.postgresql:postgresql:42.7.3")
+    // PGConnection is used to receive LISTEN/NOTIFY notifications
+    implementation("org.postgresql:postgresql:42.7.3")
     runtimeOnly(Deps.grpc.api)
     runtimeOnly(Deps.grpc.netty)
 
@@ -157,6 +159,10 @@ sourceSets {
     }
 }
 
+tasks.test {
+    useJUnitPlatform()
+}
+
 tasks.getByName("compileJava").dependsOn(
     ":daml:build",
     "openApiGenerate",
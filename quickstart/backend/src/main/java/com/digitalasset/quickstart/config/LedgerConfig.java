@@ -6,6 +6,10 @@ package com.digitalasset.quickstart.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
 @ConfigurationProperties(prefix = "ledger")
 public class LedgerConfig {
@@ -14,6 +18,420 @@ public class LedgerConfig {
     private int port = 6865;
     private String applicationId;
     private String registryBaseUri;
+    private ReadModel readModel = new ReadModel();
+    private Events events = new Events();
+    private ChannelPool channelPool = new ChannelPool();
+    private Token token = new Token();
+    private Submission submission = new Submission();
+    private Batch batch = new Batch();
+    private Limiter limiter = new Limiter();
+    private RegistryCache registryCache = new RegistryCache();
+
+    public enum SubmissionMode {
+        /**
+         * Each command holds a CommandService call open until its transaction is committed.
+         */
+        WAIT,
+        /**
+         * Commands are submitted through the CommandSubmissionService and their outcomes are read from one
+         * shared completion stream, so that many commands can be in flight without a call each.
+         */
+        PIPELINED
+    }
+
+    public enum ChannelSelection {
+        /**
+         * Each call goes to the next healthy channel in turn.
+         */
+        ROUND_ROBIN,
+        /**
+         * Each call goes to the healthy channel with the fewest calls in flight.
+         */
+        LEAST_OUTSTANDING
+    }
+
+    /**
+     * Settings for the in-memory read model of licensing contracts fed by the Ledger API update stream.
+     */
+    public static class ReadModel {
+        private boolean enabled = false;
+        // delay before resubscribing after the update stream failed
+        private Duration retryDelay = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getRetryDelay() {
+            return retryDelay;
+        }
+
+        public void setRetryDelay(Duration retryDelay) {
+            this.retryDelay = retryDelay;
+        }
+    }
+
+    /**
+     * Settings for the server-sent event stream of contract changes fed by the read model.
+     */
+    public static class Events {
+        // comment lines sent to idle connections so that proxies keep them open and dead clients are detected
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+        // events buffered per connection; a client falling further behind is disconnected
+        private int queueCapacity = 256;
+        // threads writing events to all connections
+        private int dispatchThreads = 2;
+        // a connection whose write blocks for longer is disconnected and its thread replaced
+        private Duration writeTimeout = Duration.ofSeconds(10);
+        // bound on threads replaced while stuck in a write to a disconnected client
+        private int maxStalledWrites = 32;
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getDispatchThreads() {
+            return dispatchThreads;
+        }
+
+        public void setDispatchThreads(int dispatchThreads) {
+            this.dispatchThreads = dispatchThreads;
+        }
+
+        public Duration getWriteTimeout() {
+            return writeTimeout;
+        }
+
+        public void setWriteTimeout(Duration writeTimeout) {
+            this.writeTimeout = writeTimeout;
+        }
+
+        public int getMaxStalledWrites() {
+            return maxStalledWrites;
+        }
+
+        public void setMaxStalledWrites(int maxStalledWrites) {
+            this.maxStalledWrites = maxStalledWrites;
+        }
+    }
+
+    /**
+     * Settings for the pool of gRPC channels commands are spread over.
+     */
+    public static class ChannelPool {
+        // channels, i.e. HTTP/2 connections, per participant endpoint
+        private int channelsPerEndpoint = 2;
+        private ChannelSelection selection = ChannelSelection.LEAST_OUTSTANDING;
+        // host:port of further participants hosting the same parties; fire-and-forget submissions are spread
+        // over them too. Offsets are participant-local, so commands whose offset is reported go to the configured host.
+        private List<String> additionalEndpoints = new ArrayList<>();
+        private Duration keepaliveTime = Duration.ofSeconds(30);
+        private Duration keepaliveTimeout = Duration.ofSeconds(10);
+
+        public int getChannelsPerEndpoint() {
+            return channelsPerEndpoint;
+        }
+
+        public void setChannelsPerEndpoint(int channelsPerEndpoint) {
+            this.channelsPerEndpoint = channelsPerEndpoint;
+        }
+
+        public ChannelSelection getSelection() {
+            return selection;
+        }
+
+        public void setSelection(ChannelSelection selection) {
+            this.selection = selection;
+        }
+
+        public List<String> getAdditionalEndpoints() {
+            return additionalEndpoints;
+        }
+
+        public void setAdditionalEndpoints(List<String> additionalEndpoints) {
+            this.additionalEndpoints = additionalEndpoints;
+        }
+
+        public Duration getKeepaliveTime() {
+            return keepaliveTime;
+        }
+
+        public void setKeepaliveTime(Duration keepaliveTime) {
+            this.keepaliveTime = keepaliveTime;
+        }
+
+        public Duration getKeepaliveTimeout() {
+            return keepaliveTimeout;
+        }
+
+        public void setKeepaliveTimeout(Duration keepaliveTimeout) {
+            this.keepaliveTimeout = keepaliveTimeout;
+        }
+    }
+
+    /**
+     * Settings for the cached bearer token sent with Ledger API calls.
+     */
+    public static class Token {
+        // fetch a new token this long before the current one expires; keep below the OAuth2 client's
+        // clock skew (60s) so that it returns a fresh token rather than the one it cached
+        private Duration refreshAhead = Duration.ofSeconds(30);
+        // delay between attempts after a failed refresh while the current token is still valid
+        private Duration retryDelay = Duration.ofSeconds(5);
+        // lifetime assumed for tokens that are not JWTs with an exp claim
+        private Duration fallbackLifetime = Duration.ofMinutes(5);
+
+        public Duration getRefreshAhead() {
+            return refreshAhead;
+        }
+
+        public void setRefreshAhead(Duration refreshAhead) {
+            this.refreshAhead = refreshAhead;
+        }
+
+        public Duration getRetryDelay() {
+            return retryDelay;
+        }
+
+        public void setRetryDelay(Duration retryDelay) {
+            this.retryDelay = retryDelay;
+        }
+
+        public Duration getFallbackLifetime() {
+            return fallbackLifetime;
+        }
+
+        public void setFallbackLifetime(Duration fallbackLifetime) {
+            this.fallbackLifetime = fallbackLifetime;
+        }
+    }
+
+    /**
+     * Settings for how exercised choices are submitted and their results awaited.
+     */
+    public static class Submission {
+        private SubmissionMode mode = SubmissionMode.WAIT;
+        // pipelined commands without a completion by then fail; their outcome is unknown
+        private Duration completionTimeout = Duration.ofMinutes(2);
+        // delay before resubscribing after the completion stream failed
+        private Duration retryDelay = Duration.ofSeconds(5);
+        // how long the outcome of a command submitted with Prefer: respond-async stays queryable
+        private Duration statusRetention = Duration.ofMinutes(10);
+        // bound on tracked command statuses; the oldest are evicted first
+        private long maxTrackedCommands = 10_000;
+        // how long commands on a consumed contract are redirected to the successor created by this replica
+        private Duration successorRetention = Duration.ofMinutes(1);
+
+        public SubmissionMode getMode() {
+            return mode;
+        }
+
+        public void setMode(SubmissionMode mode) {
+            this.mode = mode;
+        }
+
+        public Duration getCompletionTimeout() {
+            return completionTimeout;
+        }
+
+        public void setCompletionTimeout(Duration completionTimeout) {
+            this.completionTimeout = completionTimeout;
+        }
+
+        public Duration getRetryDelay() {
+            return retryDelay;
+        }
+
+        public void setRetryDelay(Duration retryDelay) {
+            this.retryDelay = retryDelay;
+        }
+
+        public Duration getStatusRetention() {
+            return statusRetention;
+        }
+
+        public void setStatusRetention(Duration statusRetention) {
+            this.statusRetention = statusRetention;
+        }
+
+        public long getMaxTrackedCommands() {
+            return maxTrackedCommands;
+        }
+
+        public void setMaxTrackedCommands(long maxTrackedCommands) {
+            this.maxTrackedCommands = maxTrackedCommands;
+        }
+
+        public Duration getSuccessorRetention() {
+            return successorRetention;
+        }
+
+        public void setSuccessorRetention(Duration successorRetention) {
+            this.successorRetention = successorRetention;
+        }
+    }
+
+    /**
+     * Settings for bulk endpoints that exercise a choice on many contracts.
+     */
+    public static class Batch {
+        // choices exercised in one transaction; a larger transaction saves round trips but fails as a whole
+        private int commandsPerTransaction = 50;
+        // transactions of one bulk request in flight at a time
+        private int parallelism = 4;
+
+        public int getCommandsPerTransaction() {
+            return commandsPerTransaction;
+        }
+
+        public void setCommandsPerTransaction(int commandsPerTransaction) {
+            this.commandsPerTransaction = commandsPerTransaction;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+    }
+
+    /**
+     * Settings for the adaptive concurrency limit on ledger submissions.
+     */
+    public static class Limiter {
+        // admit all submissions right away when disabled
+        private boolean enabled = true;
+        // commands in flight before any latency has been measured
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+        // latency growth over the long-term average that is tolerated before the limit shrinks
+        private double tolerance = 2.0;
+        // weight of each new limit estimate; lower values react more slowly
+        private double smoothing = 0.2;
+        // submissions waiting for a slot beyond this are rejected with 429
+        private int maxQueue = 500;
+        // submissions waiting longer than this are rejected with 503
+        private Duration queueTimeout = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getTolerance() {
+            return tolerance;
+        }
+
+        public void setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+        }
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        public void setMaxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+        }
+
+        public Duration getQueueTimeout() {
+            return queueTimeout;
+        }
+
+        public void setQueueTimeout(Duration queueTimeout) {
+            this.queueTimeout = queueTimeout;
+        }
+    }
+
+    /**
+     * Settings for caching token standard registry lookups.
+     */
+    public static class RegistryCache {
+        // how long the registry admin party is used before it is fetched again; stale values are served meanwhile
+        private Duration adminIdRefresh = Duration.ofMinutes(10);
+        // how long a decoded disclosed contract is kept after it was last used
+        private Duration disclosedContractRetention = Duration.ofMinutes(30);
+        // bound on cached disclosed contracts; the least used are evicted first
+        private long maxDisclosedContracts = 1_000;
+
+        public Duration getAdminIdRefresh() {
+            return adminIdRefresh;
+        }
+
+        public void setAdminIdRefresh(Duration adminIdRefresh) {
+            this.adminIdRefresh = adminIdRefresh;
+        }
+
+        public Duration getDisclosedContractRetention() {
+            return disclosedContractRetention;
+        }
+
+        public void setDisclosedContractRetention(Duration disclosedContractRetention) {
+            this.disclosedContractRetention = disclosedContractRetention;
+        }
+
+        public long getMaxDisclosedContracts() {
+            return maxDisclosedContracts;
+        }
+
+        public void setMaxDisclosedContracts(long maxDisclosedContracts) {
+            this.maxDisclosedContracts = maxDisclosedContracts;
+        }
+    }
 
     public String getHost() {
         return host;
@@ -46,4 +464,68 @@ public class LedgerConfig {
     public void setRegistryBaseUri(String registryBaseUri) {
         this.registryBaseUri = registryBaseUri;
     }
+
+    public ReadModel getReadModel() {
+        return readModel;
+    }
+
+    public void setReadModel(ReadModel readModel) {
+        this.readModel = readModel;
+    }
+
+    public Submission getSubmission() {
+        return submission;
+    }
+
+    public void setSubmission(Submission submission) {
+        this.submission = submission;
+    }
+
+    public Token getToken() {
+        return token;
+    }
+
+    public void setToken(Token token) {
+        this.token = token;
+    }
+
+    public ChannelPool getChannelPool() {
+        return channelPool;
+    }
+
+    public void setChannelPool(ChannelPool channelPool) {
+        this.channelPool = channelPool;
+    }
+
+    public Events getEvents() {
+        return events;
+    }
+
+    public void setEvents(Events events) {
+        this.events = events;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
+    public Limiter getLimiter() {
+        return limiter;
+    }
+
+    public void setLimiter(Limiter limiter) {
+        this.limiter = limiter;
+    }
+
+    public RegistryCache getRegistryCache() {
+        return registryCache;
+    }
+
+    public void setRegistryCache(RegistryCache registryCache) {
+        this.registryCache = registryCache;
+    }
 }
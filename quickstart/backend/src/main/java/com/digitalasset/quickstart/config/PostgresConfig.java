@@ -6,6 +6,8 @@ package com.digitalasset.quickstart.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 @ConfigurationProperties(prefix = "postgres")
 public class PostgresConfig {
@@ -14,6 +16,133 @@ public class PostgresConfig {
     private String database = "postgres";
     private String username = "postgres";
     private String password = "postgres";
+    private Pool pool = new Pool();
+    private StreamPool streamPool = new StreamPool();
+
+    /**
+     * Connection pool settings for the PQS data source.
+     */
+    public static class Pool {
+        private int minIdle = 2;
+        private int maxSize = 10;
+        private Duration connectionTimeout = Duration.ofSeconds(5);
+        private Duration idleTimeout = Duration.ofMinutes(10);
+        private Duration maxLifetime = Duration.ofMinutes(30);
+        private Duration keepaliveTime = Duration.ofMinutes(2);
+        private Duration validationTimeout = Duration.ofSeconds(2);
+        // zero disables leak detection; streaming cursors use the stream pool and its own threshold
+        private Duration leakDetectionThreshold = Duration.ofSeconds(30);
+        // executions of the same SQL on a connection before the driver switches to a server-side prepared statement
+        private int prepareThreshold = 1;
+        // server-side prepared statements kept per connection
+        private int preparedStatementCacheQueries = 256;
+
+        public int getMinIdle() {
+            return minIdle;
+        }
+
+        public void setMinIdle(int minIdle) {
+            this.minIdle = minIdle;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getConnectionTimeout() {
+            return connectionTimeout;
+        }
+
+        public void setConnectionTimeout(Duration connectionTimeout) {
+            this.connectionTimeout = connectionTimeout;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public Duration getMaxLifetime() {
+            return maxLifetime;
+        }
+
+        public void setMaxLifetime(Duration maxLifetime) {
+            this.maxLifetime = maxLifetime;
+        }
+
+        public Duration getKeepaliveTime() {
+            return keepaliveTime;
+        }
+
+        public void setKeepaliveTime(Duration keepaliveTime) {
+            this.keepaliveTime = keepaliveTime;
+        }
+
+        public Duration getValidationTimeout() {
+            return validationTimeout;
+        }
+
+        public void setValidationTimeout(Duration validationTimeout) {
+            this.validationTimeout = validationTimeout;
+        }
+
+        public Duration getLeakDetectionThreshold() {
+            return leakDetectionThreshold;
+        }
+
+        public void setLeakDetectionThreshold(Duration leakDetectionThreshold) {
+            this.leakDetectionThreshold = leakDetectionThreshold;
+        }
+
+        public int getPrepareThreshold() {
+            return prepareThreshold;
+        }
+
+        public void setPrepareThreshold(int prepareThreshold) {
+            this.prepareThreshold = prepareThreshold;
+        }
+
+        public int getPreparedStatementCacheQueries() {
+            return preparedStatementCacheQueries;
+        }
+
+        public void setPreparedStatementCacheQueries(int preparedStatementCacheQueries) {
+            this.preparedStatementCacheQueries = preparedStatementCacheQueries;
+        }
+    }
+
+    /**
+     * Settings for the separate pool of connections held by streaming cursors for a whole export or sweep.
+     */
+    public static class StreamPool {
+        // concurrent streams; further streams wait up to the connection timeout of the main pool
+        private int maxSize = 4;
+        // zero disables leak detection; set it above the longest expected export
+        private Duration leakDetectionThreshold = Duration.ofHours(1);
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getLeakDetectionThreshold() {
+            return leakDetectionThreshold;
+        }
+
+        public void setLeakDetectionThreshold(Duration leakDetectionThreshold) {
+            this.leakDetectionThreshold = leakDetectionThreshold;
+        }
+    }
 
     // Getters and Setters
     public String getHost() {
@@ -32,6 +161,13 @@ public class PostgresConfig {
         this.port = port;
     }
 
+    /**
+     * JDBC URL of the PQS database.
+     */
+    public String jdbcUrl() {
+        return String.format("jdbc:postgresql://%s:%d/%s", host, port, database);
+    }
+
     public String getDatabase() {
         return database;
     }
@@ -55,5 +191,21 @@ public class PostgresConfig {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public void setPool(Pool pool) {
+        this.pool = pool;
+    }
+
+    public StreamPool getStreamPool() {
+        return streamPool;
+    }
+
+    public void setStreamPool(StreamPool streamPool) {
+        this.streamPool = streamPool;
+    }
 }
 
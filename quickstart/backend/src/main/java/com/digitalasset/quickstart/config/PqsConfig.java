@@ -0,0 +1,269 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "pqs")
+public class PqsConfig {
+
+    private Executor executor = new Executor();
+    // rows fetched per round trip by the server-side cursor behind Pqs.stream
+    private int streamFetchSize = 500;
+    private PayloadCache payloadCache = new PayloadCache();
+    private Batch batch = new Batch();
+    private Indexes indexes = new Indexes();
+    private Watermark watermark = new Watermark();
+    private Invalidation invalidation = new Invalidation();
+
+    public enum ExecutionMode {
+        /**
+         * Fixed pool of platform threads with a bounded queue.
+         */
+        BOUNDED,
+        /**
+         * One virtual thread per query; requires a Java 21 runtime.
+         */
+        VIRTUAL
+    }
+
+    /**
+     * Settings for the executor that runs blocking PQS queries.
+     */
+    public static class Executor {
+        private ExecutionMode mode = ExecutionMode.BOUNDED;
+        // 0 means "same as postgres.pool.max-size"
+        private int threads = 0;
+        private int queueCapacity = 1000;
+
+        public ExecutionMode getMode() {
+            return mode;
+        }
+
+        public void setMode(ExecutionMode mode) {
+            this.mode = mode;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    /**
+     * Settings for the cache of decoded contract payloads.
+     */
+    public static class PayloadCache {
+        // approximate upper bound on cached payload JSON, in characters; 0 disables the cache
+        private long maximumWeight = 50_000_000L;
+
+        public long getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        public void setMaximumWeight(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+    }
+
+    /**
+     * Settings for coalescing concurrent lookups of single contracts by ID into one query.
+     */
+    public static class Batch {
+        private Duration window = Duration.ofMillis(2);
+        private int maxSize = 100;
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * Settings for the expression indexes declared by repositories.
+     */
+    public static class Indexes {
+        // log declared indexes that are missing once the application is ready
+        private boolean checkOnStartup = true;
+        // create missing indexes once the application is ready; requires a PQS user allowed to create indexes
+        private boolean provisionOnStartup = false;
+
+        public boolean isCheckOnStartup() {
+            return checkOnStartup;
+        }
+
+        public void setCheckOnStartup(boolean checkOnStartup) {
+            this.checkOnStartup = checkOnStartup;
+        }
+
+        public boolean isProvisionOnStartup() {
+            return provisionOnStartup;
+        }
+
+        public void setProvisionOnStartup(boolean provisionOnStartup) {
+            this.provisionOnStartup = provisionOnStartup;
+        }
+    }
+
+    /**
+     * Settings for waiting until PQS has ingested a given ledger offset.
+     */
+    public static class Watermark {
+        // returns the last ledger offset ingested by PQS as a single bigint
+        private String query = "select \"offset\" from __watermark";
+        private Duration pollInterval = Duration.ofMillis(50);
+        // reads proceed against possibly stale data once this elapses
+        private Duration timeout = Duration.ofSeconds(10);
+
+        public String getQuery() {
+            return query;
+        }
+
+        public void setQuery(String query) {
+            this.query = query;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * Settings for broadcasting cache invalidations to other backend replicas through Postgres NOTIFY.
+     */
+    public static class Invalidation {
+        // without it, invalidations and tenant changes only reach this replica; others see tenant changes on restart
+        private boolean enabled = true;
+        private String channel = "quickstart_invalidation";
+        // how long the listener blocks waiting for notifications before checking for shutdown
+        private Duration pollTimeout = Duration.ofSeconds(1);
+        private Duration reconnectDelay = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+
+        public void setChannel(String channel) {
+            this.channel = channel;
+        }
+
+        public Duration getPollTimeout() {
+            return pollTimeout;
+        }
+
+        public void setPollTimeout(Duration pollTimeout) {
+            this.pollTimeout = pollTimeout;
+        }
+
+        public Duration getReconnectDelay() {
+            return reconnectDelay;
+        }
+
+        public void setReconnectDelay(Duration reconnectDelay) {
+            this.reconnectDelay = reconnectDelay;
+        }
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public int getStreamFetchSize() {
+        return streamFetchSize;
+    }
+
+    public void setStreamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    public PayloadCache getPayloadCache() {
+        return payloadCache;
+    }
+
+    public void setPayloadCache(PayloadCache payloadCache) {
+        this.payloadCache = payloadCache;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
+    public Indexes getIndexes() {
+        return indexes;
+    }
+
+    public void setIndexes(Indexes indexes) {
+        this.indexes = indexes;
+    }
+
+    public Watermark getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(Watermark watermark) {
+        this.watermark = watermark;
+    }
+
+    public Invalidation getInvalidation() {
+        return invalidation;
+    }
+
+    public void setInvalidation(Invalidation invalidation) {
+        this.invalidation = invalidation;
+    }
+}
@@ -0,0 +1,126 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.ledger;
+
+import com.digitalasset.quickstart.config.LedgerConfig;
+import com.digitalasset.quickstart.security.TokenProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the bearer token for Ledger API calls and fetches the next one in the background before the
+ * current one expires, so that calls read a volatile field instead of going through the OAuth2 client.
+ * Fetches are single-flight. A call only waits for a fetch when there is no usable token at all,
+ * i.e. before the first fetch completed or after refreshes kept failing until expiry.
+ */
+final class CachedTokenProvider implements TokenProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachedTokenProvider.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+    // stop handing out a token shortly before it expires so that it does not expire in flight
+    private static final Duration EXPIRY_MARGIN = Duration.ofSeconds(5);
+
+    private record Token(String value, Instant usableUntil) {
+    }
+
+    private final TokenProvider delegate;
+    private final Duration refreshAhead;
+    private final Duration retryDelay;
+    private final Duration fallbackLifetime;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Token current;
+    // guarded by this
+    private ScheduledFuture<?> scheduledRefresh;
+
+    CachedTokenProvider(TokenProvider delegate, LedgerConfig.Token config) {
+        this.delegate = delegate;
+        this.refreshAhead = config.getRefreshAhead();
+        this.retryDelay = config.getRetryDelay();
+        this.fallbackLifetime = config.getFallbackLifetime();
+        var threadFactory = new CustomizableThreadFactory("ledger-token-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.execute(this::refresh);
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public String getToken() {
+        Token token = current;
+        if (token != null && Instant.now().isBefore(token.usableUntil())) {
+            return token.value();
+        }
+        return fetchIfStill(token);
+    }
+
+    private synchronized String fetchIfStill(Token stale) {
+        Token token = current;
+        if (token != stale && token != null && Instant.now().isBefore(token.usableUntil())) {
+            // fetched by another caller while this one waited
+            return token.value();
+        }
+        return fetch().value();
+    }
+
+    private synchronized void refresh() {
+        try {
+            fetch();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh the Ledger API token; retrying in {}", retryDelay, e);
+            schedule(retryDelay);
+        }
+    }
+
+    private synchronized Token fetch() {
+        String value = delegate.getToken();
+        Instant now = Instant.now();
+        Instant expiresAt = expiry(value).orElse(now.plus(fallbackLifetime));
+        var token = new Token(value, expiresAt.minus(EXPIRY_MARGIN));
+        current = token;
+        // never sooner than the retry delay, in case the token source hands out a token about to expire
+        Duration untilRefresh = Duration.between(now, expiresAt.minus(refreshAhead));
+        schedule(untilRefresh.compareTo(retryDelay) < 0 ? retryDelay : untilRefresh);
+        return token;
+    }
+
+    private synchronized void schedule(Duration delay) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        scheduledRefresh = scheduler.schedule(this::refresh, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The exp claim of a JWT, if the token is one.
+     */
+    private static Optional<Instant> expiry(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return Optional.empty();
+        }
+        try {
+            JsonNode exp = JSON.readTree(Base64.getUrlDecoder().decode(parts[1])).get("exp");
+            return exp != null && exp.canConvertToLong() ? Optional.of(Instant.ofEpochSecond(exp.asLong())) : Optional.empty();
+        } catch (IOException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.ledger;
+
+import com.daml.ledger.api.v2.CommandCompletionServiceGrpc;
+import com.daml.ledger.api.v2.CommandCompletionServiceOuterClass;
+import com.daml.ledger.api.v2.CompletionOuterClass;
+import com.daml.ledger.api.v2.StateServiceGrpc;
+import com.daml.ledger.api.v2.StateServiceOuterClass;
+import com.digitalasset.quickstart.config.LedgerConfig;
+import io.grpc.Channel;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Follows the command completion stream of the application provider party and completes the futures of
+ * commands submitted by this replica by command ID. One stream serves any number of commands in flight.
+ * After a failure the stream is resumed from the last offset seen, so no completion is missed.
+ */
+final class CompletionTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompletionTracker.class);
+
+    private final CommandCompletionServiceGrpc.CommandCompletionServiceStub completions;
+    private final StateServiceGrpc.StateServiceStub state;
+    private final String party;
+    private final Duration completionTimeout;
+    private final Duration retryDelay;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, CompletableFuture<CompletionOuterClass.Completion>> pending = new ConcurrentHashMap<>();
+    // completes once the stream starts before any command submitted from then on
+    private final CompletableFuture<Void> started = new CompletableFuture<>();
+
+    private volatile long offset = -1;
+    private volatile boolean stopped = false;
+    private volatile ClientCallStreamObserver<?> call;
+
+    CompletionTracker(Channel channel, String party, LedgerConfig.Submission config, MeterRegistry meterRegistry) {
+        this.completions = CommandCompletionServiceGrpc.newStub(channel);
+        this.state = StateServiceGrpc.newStub(channel);
+        this.party = party;
+        this.completionTimeout = config.getCompletionTimeout();
+        this.retryDelay = config.getRetryDelay();
+        var threadFactory = new CustomizableThreadFactory("ledger-completions-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        Gauge.builder("ledger.commands.pending", pending, Map::size)
+                .description("Submitted commands waiting for their completion")
+                .register(meterRegistry);
+        scheduler.execute(this::start);
+    }
+
+    void stop() {
+        stopped = true;
+        var current = call;
+        if (current != null) {
+            current.cancel("Shutting down", null);
+        }
+        scheduler.shutdownNow();
+        pending.values().forEach(f -> f.completeExceptionally(new IllegalStateException("Shutting down")));
+    }
+
+    /**
+     * Submits a command with the given action and tracks it. The returned future completes with the command's
+     * successful completion, or fails with the status of a rejected command, the submission error, or after the
+     * completion timeout. Submitting a command ID that is still pending shares the outcome of the earlier one.
+     */
+    CompletableFuture<CompletionOuterClass.Completion> submit(String commandId, Supplier<CompletableFuture<?>> submission) {
+        return started.copy().orTimeout(completionTimeout.toMillis(), TimeUnit.MILLISECONDS).thenCompose(v -> {
+            var future = new CompletableFuture<CompletionOuterClass.Completion>();
+            var existing = pending.putIfAbsent(commandId, future);
+            if (existing != null) {
+                return existing;
+            }
+            future.orTimeout(completionTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((completion, e) -> {
+                        pending.remove(commandId, future);
+                        if (e instanceof TimeoutException) {
+                            logger.warn("No completion for command {} within {}", commandId, completionTimeout);
+                        }
+                    });
+            // registered before submitting, so that the completion cannot arrive unnoticed
+            submission.get().whenComplete((response, e) -> {
+                if (e != null) {
+                    future.completeExceptionally(e);
+                }
+            });
+            return future;
+        });
+    }
+
+    private void start() {
+        state.getLedgerEnd(StateServiceOuterClass.GetLedgerEndRequest.getDefaultInstance(), new ResponseObserver<>() {
+            @Override
+            public void onNext(StateServiceOuterClass.GetLedgerEndResponse response) {
+                offset = response.getOffset();
+                subscribe();
+                // commands submitted from now on complete after the ledger end the stream starts from
+                started.complete(null);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                retry(t, CompletionTracker.this::start);
+            }
+        });
+    }
+
+    private void subscribe() {
+        var request = CommandCompletionServiceOuterClass.CompletionStreamRequest.newBuilder()
+                .addParties(party)
+                .setBeginExclusive(offset)
+                .build();
+        completions.completionStream(request, new ResponseObserver<>() {
+            @Override
+            public void onNext(CommandCompletionServiceOuterClass.CompletionStreamResponse response) {
+                if (response.hasCompletion()) {
+                    onCompletion(response.getCompletion());
+                } else if (response.hasOffsetCheckpoint()) {
+                    offset = response.getOffsetCheckpoint().getOffset();
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                retry(t, CompletionTracker.this::subscribe);
+            }
+
+            @Override
+            public void onCompleted() {
+                retry(new IllegalStateException("Completion stream completed"), CompletionTracker.this::subscribe);
+            }
+        });
+    }
+
+    private void onCompletion(CompletionOuterClass.Completion completion) {
+        offset = completion.getOffset();
+        var future = pending.remove(completion.getCommandId());
+        if (future == null) {
+            // submitted by another replica or client of the same user
+            return;
+        }
+        var status = completion.getStatus();
+        if (status.getCode() == Status.Code.OK.value()) {
+            future.complete(completion);
+        } else {
+            future.completeExceptionally(Status.fromCodeValue(status.getCode())
+                    .withDescription(status.getMessage())
+                    .asRuntimeException());
+        }
+    }
+
+    private void retry(Throwable t, Runnable action) {
+        if (stopped) {
+            return;
+        }
+        logger.warn("Command completion stream failed at offset {}, retrying in {}", offset, retryDelay, t);
+        scheduler.schedule(action, retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stream observer that remembers its call so that {@link #stop()} can cancel it.
+     */
+    private abstract class ResponseObserver<RespT> implements ClientResponseObserver<Object, RespT> {
+        @Override
+        public void beforeStart(ClientCallStreamObserver<Object> requestStream) {
+            call = requestStream;
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
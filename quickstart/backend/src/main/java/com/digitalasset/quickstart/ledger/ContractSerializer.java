@@ -0,0 +1,126 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.ledger;
+
+import com.digitalasset.quickstart.config.LedgerConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Runs commands that consume the same contract one after the other instead of letting them contend.
+ * Choices like {@code AppInstall_CreateLicense} archive their contract and create a successor; concurrent
+ * commands on the original would all but one fail. Here each command waits for the previous one on the
+ * same contract and is then run against the successor that command reported, so a burst of requests for
+ * one contract succeeds in turn. Commands on different contracts are not delayed.
+ * <p>
+ * Successors are remembered for {@code ledger.submission.successor-retention} after their command, so that
+ * clients still holding the original contract ID are redirected for a while. This only covers commands
+ * submitted through this replica.
+ */
+@Component
+public class ContractSerializer {
+
+    private static final class Lane {
+        // the contract the next command of the lane runs against
+        private String current;
+        private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+        private int queued;
+    }
+
+    // guarded by this; lanes are registered under the contract IDs they have run against while they have queued commands
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private final Cache<String, String> successors;
+
+    public ContractSerializer(LedgerConfig ledgerConfig, MeterRegistry meterRegistry) {
+        this.successors = Caffeine.newBuilder()
+                .expireAfterWrite(ledgerConfig.getSubmission().getSuccessorRetention())
+                .build();
+        Gauge.builder("ledger.commands.serialized", this, ContractSerializer::queued)
+                .description("Commands waiting for or running a consuming choice on a contract")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The latest known successor of the contract, or the contract itself.
+     */
+    public String resolve(String contractId) {
+        String resolved = contractId;
+        for (String next; (next = successors.getIfPresent(resolved)) != null; ) {
+            resolved = next;
+        }
+        return resolved;
+    }
+
+    /**
+     * Runs the command on the latest known version of the contract once all commands submitted before on
+     * it have completed. If the command succeeds and successor yields the ID of the contract that replaces
+     * the consumed one, later commands run against that instead.
+     */
+    public <R> CompletableFuture<R> submit(
+            String contractId,
+            Function<String, CompletableFuture<R>> command,
+            Function<R, Optional<String>> successor
+    ) {
+        Lane lane;
+        CompletableFuture<?> previous;
+        CompletableFuture<R> result = new CompletableFuture<>();
+        synchronized (this) {
+            String resolved = resolve(contractId);
+            lane = lanes.get(resolved);
+            if (lane == null) {
+                lane = new Lane();
+                lane.current = resolved;
+                lanes.put(resolved, lane);
+            }
+            lane.queued++;
+            previous = lane.tail;
+            lane.tail = result;
+        }
+        var ownLane = lane;
+        // runs whatever the outcome of the previous command
+        previous.handle((r, e) -> null).thenCompose(v -> {
+            String target;
+            synchronized (this) {
+                target = ownLane.current;
+            }
+            try {
+                return command.apply(target);
+            } catch (RuntimeException e) {
+                return CompletableFuture.<R>failedFuture(e);
+            }
+        }).whenComplete((r, e) -> {
+            synchronized (this) {
+                if (e == null) {
+                    successor.apply(r).ifPresent(next -> {
+                        successors.put(ownLane.current, next);
+                        ownLane.current = next;
+                        lanes.put(next, ownLane);
+                    });
+                }
+                if (--ownLane.queued == 0) {
+                    lanes.values().removeIf(l -> l == ownLane);
+                }
+            }
+            if (e == null) {
+                result.complete(r);
+            } else {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private synchronized int queued() {
+        return lanes.values().stream().distinct().mapToInt(l -> l.queued).sum();
+    }
+}
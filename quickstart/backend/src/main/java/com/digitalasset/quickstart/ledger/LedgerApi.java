@@ -21,8 +21,10 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import daml.Daml;
 import io.grpc.*;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,14 +33,32 @@ import org.springframework.stereotype.Component;
 import javax.annotation.Nonnull;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import static com.digitalasset.quickstart.utility.TracingUtils.*;
 
 @Component
 public class LedgerApi {
     private final String APP_ID;
+    private final CachedTokenProvider token;
+    private final LedgerChannelPool channels;
+    // fire-and-forget submissions report no offset, so they may go to any participant of the pool
     private final CommandSubmissionServiceGrpc.CommandSubmissionServiceFutureStub submission;
+    // offsets returned by these are awaited against PQS and the read model, so they go to the configured host
     private final CommandServiceGrpc.CommandServiceFutureStub commands;
+    // only in pipelined submission mode; completions are participant-local, so these go to the configured host
+    private final CompletionTracker completions;
+    private final CommandSubmissionServiceGrpc.CommandSubmissionServiceFutureStub pipelinedSubmission;
+    private final UpdateServiceGrpc.UpdateServiceFutureStub updates;
+    // null when disabled
+    private final SubmissionLimiter limiter;
+    // the app provider's view of submitted transactions, with the results of exercised choices
+    private final TransactionFilterOuterClass.TransactionFormat transactionFormat;
+    // the parts of every submission that do not depend on the commands
+    private final CommandsOuterClass.Commands commandsPrototype;
+    private final Map<Class<?>, ChoiceSkeleton> choices = new ConcurrentHashMap<>();
+    private final Map<Class<?>, CreateSkeleton> creates = new ConcurrentHashMap<>();
     private final Dictionary<Converter<Object, ValueOuterClass.Value>> dto2Proto;
     private final Dictionary<Converter<ValueOuterClass.Value, Object>> proto2Dto;
 
@@ -46,32 +66,75 @@ public class LedgerApi {
     private final String appProviderParty;
 
     @Autowired
-    public LedgerApi(LedgerConfig ledgerConfig, Optional<TokenProvider> tokenProvider, AuthUtils authUtils) {
+    public LedgerApi(
+            LedgerConfig ledgerConfig,
+            Optional<TokenProvider> tokenProvider,
+            AuthUtils authUtils,
+            MeterRegistry meterRegistry
+    ) {
         APP_ID = ledgerConfig.getApplicationId();
         appProviderParty = authUtils.getAppProviderPartyId();
-        ManagedChannelBuilder<?> builder = ManagedChannelBuilder
-                .forAddress(ledgerConfig.getHost(), ledgerConfig.getPort())
-                .usePlaintext();
         if (tokenProvider.isEmpty()) {
             throw new IllegalStateException("TokenProvider is required for authentication");
         }
-        builder.intercept(new Interceptor(tokenProvider.get()));
-        ManagedChannel channel = builder.build();
+        token = new CachedTokenProvider(tokenProvider.get(), ledgerConfig.getToken());
+        channels = new LedgerChannelPool(ledgerConfig, new Interceptor(token), meterRegistry);
 
         // Single log statement, not duplicating attributes for spans, so leaving as-is:
         logger.atInfo()
                 .addKeyValue("host", ledgerConfig.getHost())
                 .addKeyValue("port", ledgerConfig.getPort())
+                .addKeyValue("endpoints", channels.endpoints())
+                .addKeyValue("channelsPerEndpoint", ledgerConfig.getChannelPool().getChannelsPerEndpoint())
                 .log("Connected to ledger");
 
-        submission = CommandSubmissionServiceGrpc.newFutureStub(channel);
-        commands = CommandServiceGrpc.newFutureStub(channel);
+        submission = CommandSubmissionServiceGrpc.newFutureStub(channels);
+        commands = CommandServiceGrpc.newFutureStub(channels.primary());
+        if (ledgerConfig.getSubmission().getMode() == LedgerConfig.SubmissionMode.PIPELINED) {
+            completions = new CompletionTracker(channels.primary(), appProviderParty, ledgerConfig.getSubmission(), meterRegistry);
+            pipelinedSubmission = CommandSubmissionServiceGrpc.newFutureStub(channels.primary());
+            updates = UpdateServiceGrpc.newFutureStub(channels.primary());
+        } else {
+            completions = null;
+            pipelinedSubmission = null;
+            updates = null;
+        }
+
+        limiter = ledgerConfig.getLimiter().isEnabled()
+                ? new SubmissionLimiter(ledgerConfig.getLimiter(), meterRegistry)
+                : null;
+
+        transactionFormat = TransactionFilterOuterClass.TransactionFormat.newBuilder()
+                .setEventFormat(TransactionFilterOuterClass.EventFormat.newBuilder()
+                        .putFiltersByParty(appProviderParty, TransactionFilterOuterClass.Filters.newBuilder().build()))
+                .setTransactionShape(TransactionFilterOuterClass.TransactionShape.TRANSACTION_SHAPE_LEDGER_EFFECTS)
+                .build();
+
+        commandsPrototype = CommandsOuterClass.Commands.newBuilder()
+                .addActAs(appProviderParty)
+                .addReadAs(appProviderParty)
+                .build();
 
         ProtobufCodec protoCodec = new ProtobufCodec();
         dto2Proto = Utils.getConverters(Daml.ENTITIES, protoCodec);
         proto2Dto = Utils.getConverters(protoCodec, Daml.ENTITIES);
     }
 
+    private record ChoiceSkeleton(
+            CommandsOuterClass.ExerciseCommand exercise,
+            Converter<Object, ValueOuterClass.Value> argument,
+            Converter<ValueOuterClass.Value, Object> result,
+            // ledger effects of the choice's template only, for ResponseShape.EXERCISE_RESULT
+            TransactionFilterOuterClass.TransactionFormat resultFormat
+    ) {
+    }
+
+    private record CreateSkeleton(
+            CommandsOuterClass.CreateCommand create,
+            Converter<Object, ValueOuterClass.Value> payload
+    ) {
+    }
+
     @WithSpan
     public <T extends Template> CompletableFuture<Void> create(
             T entity,
@@ -83,10 +146,14 @@ public class LedgerApi {
                 "applicationId", APP_ID
         );
         return traceWithStartEvent(ctx, () -> {
-            CommandsOuterClass.Command.Builder command = CommandsOuterClass.Command.newBuilder();
-            ValueOuterClass.Value payload = dto2Proto.template(entity.templateId()).convert(entity);
-            command.getCreateBuilder().setTemplateId(toIdentifier(entity.templateId())).setCreateArguments(payload.getRecord());
-            return submitCommands(List.of(command.build()), commandId).thenApply(submitResponse -> null);
+            var skeleton = creates.computeIfAbsent(entity.getClass(), c -> new CreateSkeleton(
+                    CommandsOuterClass.CreateCommand.newBuilder().setTemplateId(toIdentifier(entity.templateId())).build(),
+                    dto2Proto.template(entity.templateId())));
+            ValueOuterClass.Value payload = skeleton.payload().convert(entity);
+            var command = CommandsOuterClass.Command.newBuilder()
+                    .setCreate(skeleton.create().toBuilder().setCreateArguments(payload.getRecord()))
+                    .build();
+            return submitCommands(List.of(command), commandId).thenApply(submitResponse -> null);
         });
     }
 
@@ -107,76 +174,252 @@ public class LedgerApi {
             C choice,
             String commandId,
             List<CommandsOuterClass.DisclosedContract> disclosedContracts
+    ) {
+        return exercise(contractId, choice, commandId, disclosedContracts).thenApply(Exercised::result);
+    }
+
+    /**
+     * The result of an exercised choice together with the ledger offset of its transaction.
+     * Reads that must observe the effect of the choice can wait for their source to reach the offset.
+     */
+    public record Exercised<Result>(Result result, long offset) {
+    }
+
+    @WithSpan
+    public <T extends Template, Result, C extends Choice<T, Result>>
+    CompletableFuture<Exercised<Result>> exercise(
+            ContractId<T> contractId,
+            C choice,
+            String commandId
+    ) {
+        return exercise(contractId, choice, commandId, List.of());
+    }
+
+    @WithSpan
+    public <T extends Template, Result, C extends Choice<T, Result>>
+    CompletableFuture<Exercised<Result>> exercise(
+            ContractId<T> contractId,
+            C choice,
+            String commandId,
+            List<CommandsOuterClass.DisclosedContract> disclosedContracts
+    ) {
+        return exercise(contractId, choice, commandId, disclosedContracts, ResponseShape.FULL_TREE);
+    }
+
+    @WithSpan
+    public <T extends Template, Result, C extends Choice<T, Result>>
+    CompletableFuture<Exercised<Result>> exercise(
+            ContractId<T> contractId,
+            C choice,
+            String commandId,
+            ResponseShape shape
+    ) {
+        return exercise(contractId, choice, commandId, List.of(), shape);
+    }
+
+    /**
+     * How much of the transaction of an exercised choice the participant sends back.
+     */
+    public enum ResponseShape {
+        /**
+         * Only the completion; the result of the exercise is null. For choices whose result is not needed.
+         */
+        COMPLETION_ONLY,
+        /**
+         * The events of the choice's template only, which include the root exercise with its result.
+         * Only for choices declared on a template, not on an interface.
+         */
+        EXERCISE_RESULT,
+        /**
+         * All events visible to the app provider.
+         */
+        FULL_TREE
+    }
+
+    @WithSpan
+    public <T extends Template, Result, C extends Choice<T, Result>>
+    CompletableFuture<Exercised<Result>> exercise(
+            ContractId<T> contractId,
+            C choice,
+            String commandId,
+            List<CommandsOuterClass.DisclosedContract> disclosedContracts,
+            ResponseShape shape
     ) {
         var ctx = tracingCtx(logger, "Exercising choice",
                 "commandId", commandId,
                 "contractId", contractId.getContractId,
                 "choiceName", choice.choiceName(),
                 "templateId", choice.templateId().toString(),
+                "responseShape", shape.name(),
                 "applicationId", APP_ID
         );
         return trace(ctx, () -> {
-            CommandsOuterClass.Command.Builder cmdBuilder = CommandsOuterClass.Command.newBuilder();
-            ValueOuterClass.Value payload =
-                    dto2Proto.choiceArgument(choice.templateId(), choice.choiceName()).convert(choice);
-
-            cmdBuilder.getExerciseBuilder()
-                    .setTemplateId(toIdentifier(choice.templateId()))
-                    .setContractId(contractId.getContractId)
-                    .setChoice(choice.choiceName())
-                    .setChoiceArgument(payload);
-
-            CommandsOuterClass.Commands.Builder commandsBuilder = CommandsOuterClass.Commands.newBuilder()
-                    .setCommandId(commandId)
-                    .addActAs(appProviderParty)
-                    .addReadAs(appProviderParty)
-                    .addCommands(cmdBuilder.build());
-
-            if (disclosedContracts != null && !disclosedContracts.isEmpty()) {
-                commandsBuilder.addAllDisclosedContracts(disclosedContracts);
-            }
-
-            var eventFormat = TransactionFilterOuterClass.EventFormat.newBuilder()
-                    .putFiltersByParty(appProviderParty, TransactionFilterOuterClass.Filters.newBuilder().build())
-                    .build();
-            var transactionShape = TransactionFilterOuterClass.TransactionShape.TRANSACTION_SHAPE_LEDGER_EFFECTS;
-            var transactionFormat =
-                    TransactionFilterOuterClass.TransactionFormat.newBuilder()
-                            .setEventFormat(eventFormat)
-                            .setTransactionShape(transactionShape)
-                            .build();
-            CommandServiceOuterClass.SubmitAndWaitForTransactionRequest request =
-                    CommandServiceOuterClass.SubmitAndWaitForTransactionRequest.newBuilder()
-                            .setCommands(commandsBuilder.build())
-                            .setTransactionFormat(transactionFormat)
-                            .build();
-
+            var cmds = commands(commandId, List.of(exerciseCommand(contractId, choice)), disclosedContracts);
             addEventWithAttributes(Span.current(), "built ledger submit request", Map.of());
             logger.info("Submitting ledger command");
-            return toCompletableFuture(commands.submitAndWaitForTransaction(request))
-                    .thenApply(response -> {
-                        TransactionOuterClass.Transaction txTree = response.getTransaction();
-                        long offset = txTree.getOffset();
-                        String workflowId = txTree.getWorkflowId();
-                        int eventCount = txTree.getEventsCount();
-                        EventOuterClass.Event event = eventCount != 0 ? txTree.getEvents(0) : null;
-
-                        Map<String, Object> completionAttrs = new HashMap<>();
-                        completionAttrs.put("ledgerOffset", offset);
-                        completionAttrs.put("workflowId", workflowId);
-
-                        setSpanAttributes(Span.current(), completionAttrs);
-                        logInfo(logger, "Exercised choice", completionAttrs);
-
-                        ValueOuterClass.Value resultPayload = event != null ? event.getExercised().getExerciseResult() : ValueOuterClass.Value.getDefaultInstance();
-
-                        @SuppressWarnings("unchecked")
-                        Result result = (Result) proto2Dto.choiceResult(choice.templateId(), choice.choiceName()).convert(resultPayload);
-                        return result;
-                    });
+            return switch (shape) {
+                case COMPLETION_ONLY -> submitAndWaitForCompletion(cmds, commandId)
+                        .thenApply(offset -> new Exercised<Result>(null, offset));
+                case EXERCISE_RESULT -> submitAndWait(cmds, commandId, choiceSkeleton(choice).resultFormat())
+                        .thenApply(transaction -> this.<Result>exercised(choice, transaction));
+                case FULL_TREE -> submitAndWait(cmds, commandId, transactionFormat)
+                        .thenApply(transaction -> this.<Result>exercised(choice, transaction));
+            };
         });
     }
 
+    /**
+     * A choice to exercise as one of several commands of a transaction.
+     */
+    public record Exercise<T extends Template>(ContractId<T> contractId, Choice<T, ?> choice) {
+    }
+
+    /**
+     * Exercises the choices in a single transaction, so that either all or none of them take effect,
+     * and returns the offset of the transaction.
+     */
+    @WithSpan
+    public CompletableFuture<Long> exerciseAll(
+            List<Exercise<?>> exercises,
+            String commandId
+    ) {
+        var ctx = tracingCtx(logger, "Exercising choices",
+                "commandId", commandId,
+                "commands.count", exercises.size(),
+                "applicationId", APP_ID
+        );
+        return trace(ctx, () -> {
+            var cmds = exercises.stream()
+                    .map(exercise -> exerciseCommand(exercise.contractId(), exercise.choice()))
+                    .toList();
+            return submitAndWaitForCompletion(commands(commandId, cmds, List.of()), commandId);
+        });
+    }
+
+    private CommandsOuterClass.Command exerciseCommand(ContractId<?> contractId, Choice<?, ?> choice) {
+        var skeleton = choiceSkeleton(choice);
+        ValueOuterClass.Value payload = skeleton.argument().convert(choice);
+        return CommandsOuterClass.Command.newBuilder()
+                .setExercise(skeleton.exercise().toBuilder()
+                        .setContractId(contractId.getContractId)
+                        .setChoiceArgument(payload))
+                .build();
+    }
+
+    /**
+     * The parts of the commands for a choice that only depend on its template and name, built on first use.
+     */
+    private ChoiceSkeleton choiceSkeleton(Choice<?, ?> choice) {
+        return choices.computeIfAbsent(choice.getClass(), c -> {
+            var templateId = toIdentifier(choice.templateId());
+            var templateFilter = TransactionFilterOuterClass.Filters.newBuilder()
+                    .addCumulative(TransactionFilterOuterClass.CumulativeFilter.newBuilder()
+                            .setTemplateFilter(TransactionFilterOuterClass.TemplateFilter.newBuilder()
+                                    .setTemplateId(templateId)))
+                    .build();
+            return new ChoiceSkeleton(
+                    CommandsOuterClass.ExerciseCommand.newBuilder()
+                            .setTemplateId(templateId)
+                            .setChoice(choice.choiceName())
+                            .build(),
+                    dto2Proto.choiceArgument(choice.templateId(), choice.choiceName()),
+                    proto2Dto.choiceResult(choice.templateId(), choice.choiceName()),
+                    transactionFormat.toBuilder()
+                            .setEventFormat(TransactionFilterOuterClass.EventFormat.newBuilder()
+                                    .putFiltersByParty(appProviderParty, templateFilter))
+                            .build());
+        });
+    }
+
+    private CommandsOuterClass.Commands commands(
+            String commandId,
+            List<CommandsOuterClass.Command> cmds,
+            List<CommandsOuterClass.DisclosedContract> disclosedContracts
+    ) {
+        CommandsOuterClass.Commands.Builder commandsBuilder = commandsPrototype.toBuilder()
+                .setCommandId(commandId)
+                .addAllCommands(cmds);
+
+        if (disclosedContracts != null && !disclosedContracts.isEmpty()) {
+            commandsBuilder.addAllDisclosedContracts(disclosedContracts);
+        }
+        return commandsBuilder.build();
+    }
+
+    /**
+     * Submits the commands and returns their transaction in the given format once committed, either
+     * waiting on the command service or, in pipelined mode, on the completion stream.
+     */
+    private CompletableFuture<TransactionOuterClass.Transaction> submitAndWait(
+            CommandsOuterClass.Commands cmds,
+            String commandId,
+            TransactionFilterOuterClass.TransactionFormat format
+    ) {
+        return limited(() -> {
+            if (completions == null) {
+                CommandServiceOuterClass.SubmitAndWaitForTransactionRequest request =
+                        CommandServiceOuterClass.SubmitAndWaitForTransactionRequest.newBuilder()
+                                .setCommands(cmds)
+                                .setTransactionFormat(format)
+                                .build();
+                return toCompletableFuture(commands.submitAndWaitForTransaction(request))
+                        .thenApply(CommandServiceOuterClass.SubmitAndWaitForTransactionResponse::getTransaction);
+            }
+            return submitPipelined(cmds, commandId)
+                    .thenCompose(completion -> toCompletableFuture(updates.getUpdateById(
+                            UpdateServiceOuterClass.GetUpdateByIdRequest.newBuilder()
+                                    .setUpdateId(completion.getUpdateId())
+                                    .setUpdateFormat(TransactionFilterOuterClass.UpdateFormat.newBuilder()
+                                            .setIncludeTransactions(format))
+                                    .build())))
+                    .thenApply(UpdateServiceOuterClass.GetUpdateResponse::getTransaction);
+        }, true);
+    }
+
+    /**
+     * Submits the commands and returns the offset of their transaction once committed, without
+     * fetching the transaction.
+     */
+    private CompletableFuture<Long> submitAndWaitForCompletion(CommandsOuterClass.Commands cmds, String commandId) {
+        return limited(() -> {
+            if (completions == null) {
+                var request = CommandServiceOuterClass.SubmitAndWaitRequest.newBuilder()
+                        .setCommands(cmds)
+                        .build();
+                return toCompletableFuture(commands.submitAndWait(request))
+                        .thenApply(CommandServiceOuterClass.SubmitAndWaitResponse::getCompletionOffset);
+            }
+            return submitPipelined(cmds, commandId).thenApply(CompletionOuterClass.Completion::getOffset);
+        }, true);
+    }
+
+    private CompletableFuture<CompletionOuterClass.Completion> submitPipelined(CommandsOuterClass.Commands cmds, String commandId) {
+        var request = CommandSubmissionServiceOuterClass.SubmitRequest.newBuilder()
+                .setCommands(cmds)
+                .build();
+        return completions.submit(commandId, () -> toCompletableFuture(pipelinedSubmission.submit(request)));
+    }
+
+    private <Result> Exercised<Result> exercised(Choice<?, Result> choice, TransactionOuterClass.Transaction txTree) {
+        long offset = txTree.getOffset();
+        String workflowId = txTree.getWorkflowId();
+        int eventCount = txTree.getEventsCount();
+        EventOuterClass.Event event = eventCount != 0 ? txTree.getEvents(0) : null;
+
+        Map<String, Object> completionAttrs = new HashMap<>();
+        completionAttrs.put("ledgerOffset", offset);
+        completionAttrs.put("workflowId", workflowId);
+
+        setSpanAttributes(Span.current(), completionAttrs);
+        logInfo(logger, "Exercised choice", completionAttrs);
+
+        ValueOuterClass.Value resultPayload = event != null ? event.getExercised().getExerciseResult() : ValueOuterClass.Value.getDefaultInstance();
+
+        @SuppressWarnings("unchecked")
+        Result result = (Result) choiceSkeleton(choice).result().convert(resultPayload);
+        return new Exercised<>(result, offset);
+    }
+
     @WithSpan
     public CompletableFuture<CommandSubmissionServiceOuterClass.SubmitResponse> submitCommands(
             List<CommandsOuterClass.Command> cmds,
@@ -197,25 +440,47 @@ public class LedgerApi {
                 "applicationId", APP_ID
         );
         return trace(ctx, () -> {
-            CommandsOuterClass.Commands.Builder commandsBuilder = CommandsOuterClass.Commands.newBuilder()
-                    .setCommandId(commandId)
-                    .addActAs(appProviderParty)
-                    .addReadAs(appProviderParty)
-                    .addAllCommands(cmds);
-
-            if (disclosedContracts != null && !disclosedContracts.isEmpty()) {
-                commandsBuilder.addAllDisclosedContracts(disclosedContracts);
-            }
-
             CommandSubmissionServiceOuterClass.SubmitRequest request =
                     CommandSubmissionServiceOuterClass.SubmitRequest.newBuilder()
-                            .setCommands(commandsBuilder.build())
+                            .setCommands(commands(commandId, cmds, disclosedContracts))
                             .build();
 
-            return toCompletableFuture(submission.submit(request));
+            return limited(() -> toCompletableFuture(submission.submit(request)), false);
         });
     }
 
+    private <T> CompletableFuture<T> limited(Supplier<CompletableFuture<T>> submission, boolean measured) {
+        return limiter != null ? limiter.run(submission, measured) : submission.get();
+    }
+
+
+    @PreDestroy
+    void shutdown() {
+        if (completions != null) {
+            completions.stop();
+        }
+        channels.shutdown();
+        token.shutdown();
+    }
+
+    /**
+     * The authenticated channels to the configured participant, shared with other Ledger API clients in this package.
+     */
+    Channel channel() {
+        return channels.primary();
+    }
+
+    String appProviderParty() {
+        return appProviderParty;
+    }
+
+    static ValueOuterClass.Identifier toIdentifier(Identifier id) {
+        return ValueOuterClass.Identifier.newBuilder()
+                .setPackageId(id.packageNameAsPackageId())
+                .setModuleName(id.moduleName())
+                .setEntityName(id.entityName())
+                .build();
+    }
 
     private static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> listenableFuture) {
         CompletableFuture<T> completableFuture = new CompletableFuture<>();
@@ -233,14 +498,6 @@ public class LedgerApi {
         return completableFuture;
     }
 
-    private static ValueOuterClass.Identifier toIdentifier(Identifier id) {
-        return ValueOuterClass.Identifier.newBuilder()
-                .setPackageId(id.packageNameAsPackageId())
-                .setModuleName(id.moduleName())
-                .setEntityName(id.entityName())
-                .build();
-    }
-
 
     private static class Interceptor implements ClientInterceptor {
         private final Metadata.Key<String> AUTHORIZATION_HEADER = Metadata.Key.of("Authorization", Metadata.ASCII_STRING_MARSHALLER);
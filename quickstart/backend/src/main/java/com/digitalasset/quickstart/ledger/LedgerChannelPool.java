@@ -0,0 +1,176 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.ledger;
+
+import com.digitalasset.quickstart.config.LedgerConfig;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ConnectivityState;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Channel that spreads calls over several HTTP/2 connections, possibly to several participants, so that
+ * concurrent commands are not capped by the stream limit and event loop of a single connection.
+ * Channels in transient failure are skipped while any other is usable. Calls in flight per channel are
+ * reported as {@code ledger.channel.in-flight} and connectivity as {@code ledger.channel.healthy}, both
+ * tagged with the endpoint and the channel's index.
+ */
+class LedgerChannelPool extends Channel {
+
+    private static final class Member {
+        private final String endpoint;
+        private final ManagedChannel channel;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        Member(String endpoint, ManagedChannel channel) {
+            this.endpoint = endpoint;
+            this.channel = channel;
+        }
+
+        boolean isHealthy() {
+            var state = channel.getState(false);
+            return state != ConnectivityState.TRANSIENT_FAILURE && state != ConnectivityState.SHUTDOWN;
+        }
+    }
+
+    private final List<Member> members = new ArrayList<>();
+    private final List<Member> primaryMembers = new ArrayList<>();
+    private final LedgerConfig.ChannelSelection selection;
+    private final AtomicInteger next = new AtomicInteger();
+
+    LedgerChannelPool(LedgerConfig ledgerConfig, ClientInterceptor interceptor, MeterRegistry meterRegistry) {
+        var config = ledgerConfig.getChannelPool();
+        if (config.getChannelsPerEndpoint() < 1) {
+            throw new IllegalArgumentException("ledger.channel-pool.channels-per-endpoint must be at least 1");
+        }
+        this.selection = config.getSelection();
+        var endpoints = new ArrayList<String>();
+        endpoints.add(ledgerConfig.getHost() + ":" + ledgerConfig.getPort());
+        endpoints.addAll(config.getAdditionalEndpoints());
+        for (String endpoint : endpoints) {
+            for (int i = 0; i < config.getChannelsPerEndpoint(); i++) {
+                ManagedChannel channel = ManagedChannelBuilder.forTarget(endpoint)
+                        .usePlaintext()
+                        .keepAliveTime(config.getKeepaliveTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .keepAliveTimeout(config.getKeepaliveTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                        .intercept(interceptor)
+                        .build();
+                // connect now rather than on the first command
+                channel.getState(true);
+                var member = new Member(endpoint, channel);
+                members.add(member);
+                if (endpoint.equals(endpoints.get(0))) {
+                    primaryMembers.add(member);
+                }
+                var index = Integer.toString(i);
+                Gauge.builder("ledger.channel.in-flight", member, m -> m.inFlight.get())
+                        .description("Ledger API calls in flight on the channel")
+                        .tags("endpoint", endpoint, "channel", index)
+                        .register(meterRegistry);
+                Gauge.builder("ledger.channel.healthy", member, m -> m.isHealthy() ? 1 : 0)
+                        .description("Whether the channel is connected or connecting")
+                        .tags("endpoint", endpoint, "channel", index)
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    /**
+     * The endpoints the pool connects to, the configured ledger host first.
+     */
+    List<String> endpoints() {
+        return members.stream().map(m -> m.endpoint).distinct().toList();
+    }
+
+    /**
+     * A channel over the connections to the configured ledger host only. Offsets are participant-local,
+     * so callers whose offsets must match those of PQS and the read model, including commands whose
+     * offset is reported to clients, use it.
+     */
+    Channel primary() {
+        return new Channel() {
+            @Override
+            public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+                return LedgerChannelPool.this.newCall(select(primaryMembers), method, callOptions);
+            }
+
+            @Override
+            public String authority() {
+                return primaryMembers.get(0).channel.authority();
+            }
+        };
+    }
+
+    void shutdown() {
+        members.forEach(m -> m.channel.shutdown());
+    }
+
+    @Override
+    public String authority() {
+        return members.get(0).channel.authority();
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+        return newCall(select(members), method, callOptions);
+    }
+
+    private <ReqT, RespT> ClientCall<ReqT, RespT> newCall(Member member, MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(member.channel.newCall(method, callOptions)) {
+            private final AtomicBoolean counted = new AtomicBoolean();
+
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                member.inFlight.incrementAndGet();
+                counted.set(true);
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        if (counted.compareAndSet(true, false)) {
+                            member.inFlight.decrementAndGet();
+                        }
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+
+    private Member select(List<Member> members) {
+        int size = members.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        Member selected = null;
+        for (int i = 0; i < size; i++) {
+            Member candidate = members.get((start + i) % size);
+            if (!candidate.isHealthy()) {
+                continue;
+            }
+            if (selection == LedgerConfig.ChannelSelection.ROUND_ROBIN) {
+                return candidate;
+            }
+            // scanning from a rotating start spreads calls evenly among channels with equal load
+            if (selected == null || candidate.inFlight.get() < selected.inFlight.get()) {
+                selected = candidate;
+            }
+        }
+        // with no channel usable, let gRPC fail or wait for reconnection on the next one in turn
+        return selected != null ? selected : members.get(start);
+    }
+}
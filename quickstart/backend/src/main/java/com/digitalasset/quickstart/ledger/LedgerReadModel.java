@@ -0,0 +1,601 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.ledger;
+
+import com.daml.ledger.api.v2.*;
+import com.digitalasset.quickstart.config.LedgerConfig;
+import com.digitalasset.quickstart.pqs.Contract;
+import com.digitalasset.transcode.Converter;
+import com.digitalasset.transcode.codec.proto.ProtobufCodec;
+import com.digitalasset.transcode.java.ContractId;
+import com.digitalasset.transcode.java.Template;
+import com.digitalasset.transcode.java.Utils;
+import com.digitalasset.transcode.schema.Dictionary;
+import com.digitalasset.transcode.schema.Identifier;
+import daml.Daml;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import quickstart_licensing.licensing.appinstall.AppInstall;
+import quickstart_licensing.licensing.appinstall.AppInstallRequest;
+import quickstart_licensing.licensing.license.License;
+import quickstart_licensing.licensing.license.LicenseRenewalRequest;
+import splice_api_token_allocation_v1.splice.api.token.allocationv1.Allocation;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * In-memory read model of the active licensing contracts visible to the app provider.
+ * <p>
+ * The model bootstraps from the StateService active contract set at the current ledger end and then
+ * tails the UpdateService transaction stream (ACS delta shape) from that offset, keeping party-indexed
+ * maps of live contracts. If the stream fails it resubscribes from the last processed offset, or
+ * bootstraps again if that offset has been pruned. An event the model fails to apply would leave it
+ * disagreeing with the ledger, so the model then stops serving and bootstraps again. Readers should fall
+ * back to PQS while {@link #isReady()} is false.
+ * <p>
+ * Allocations are tracked through the interface view only as far as needed to match them to renewal
+ * requests: contract ID, settlement reference ID and the transfer leg parties.
+ */
+@Component
+@ConditionalOnProperty(prefix = "ledger.read-model", name = "enabled", havingValue = "true")
+public class LedgerReadModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerReadModel.class);
+    // update stream failures without progress after which the model stops serving and reloads its snapshot
+    private static final int MAX_FAILURES_AT_OFFSET = 3;
+
+    /**
+     * A contract created or archived by a transaction processed by the read model.
+     *
+     * @param payload the decoded contract for creates of templates; empty for archives and allocations
+     * @param parties the user, provider or transfer leg parties the contract is visible to in this application
+     */
+    public record ContractChange(
+            long offset,
+            Class<? extends Template> template,
+            String contractId,
+            boolean created,
+            Optional<Template> payload,
+            Set<String> parties) {
+    }
+
+    /**
+     * Receives changes in ledger order on the update stream thread; implementations must not block.
+     */
+    public interface Listener {
+        void onChange(ContractChange change);
+
+        /**
+         * Called when the model was rebuilt from a fresh snapshot and changes may have been skipped.
+         */
+        default void onReset(long offset) {
+        }
+    }
+
+    private record AllocationRef(String contractId, String settlementRefId, String sender, Set<String> parties) {
+    }
+
+    private final StateServiceGrpc.StateServiceStub state;
+    private final UpdateServiceGrpc.UpdateServiceStub updates;
+    private final String party;
+    private final Duration retryDelay;
+    private final Dictionary<Converter<ValueOuterClass.Value, Object>> proto2Dto;
+    private final ScheduledExecutorService scheduler;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Counter skippedEvents;
+
+    private final LiveContracts<License> licenses = new LiveContracts<>(License.class,
+            c -> partySet(c.getUser.getParty, c.getProvider.getParty), null);
+    private final LiveContracts<LicenseRenewalRequest> renewals = new LiveContracts<>(LicenseRenewalRequest.class,
+            c -> partySet(c.getUser.getParty, c.getProvider.getParty), c -> renewalKey(c.getUser.getParty, c.getLicenseNum));
+    private final LiveContracts<AppInstall> appInstalls = new LiveContracts<>(AppInstall.class,
+            c -> partySet(c.getUser.getParty, c.getProvider.getParty), null);
+    private final LiveContracts<AppInstallRequest> appInstallRequests = new LiveContracts<>(AppInstallRequest.class,
+            c -> partySet(c.getUser.getParty, c.getProvider.getParty), null);
+    private final List<LiveContracts<?>> templates = List.of(licenses, renewals, appInstalls, appInstallRequests);
+    private final Identifier allocationId = Utils.getTemplateIdByClass(Allocation.class);
+    private final Map<String, AllocationRef> allocations = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> allocationsByRef = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+    private volatile boolean stopped = false;
+    private volatile long offset = 0;
+    private volatile ClientCallStreamObserver<?> call;
+    // only touched by stream callbacks and retries, which never overlap
+    private long failedOffset = -1;
+    private int failuresAtOffset;
+    // whether an event failed to apply since the snapshot or transaction being processed began
+    private boolean skippedEvent;
+    // guarded by itself
+    private final NavigableMap<Long, List<CompletableFuture<Void>>> waiters = new TreeMap<>();
+
+    public LedgerReadModel(LedgerApi ledgerApi, LedgerConfig ledgerConfig, MeterRegistry meterRegistry) {
+        this.state = StateServiceGrpc.newStub(ledgerApi.channel());
+        this.updates = UpdateServiceGrpc.newStub(ledgerApi.channel());
+        this.party = ledgerApi.appProviderParty();
+        this.retryDelay = ledgerConfig.getReadModel().getRetryDelay();
+        this.proto2Dto = Utils.getConverters(new ProtobufCodec(), Daml.ENTITIES);
+        var threadFactory = new CustomizableThreadFactory("ledger-read-model-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        this.skippedEvents = Counter.builder("ledger.read-model.skipped-events")
+                .description("Events the ledger read model failed to apply, each followed by a reload")
+                .register(meterRegistry);
+        Gauge.builder("ledger.read-model.ready", this, model -> model.ready ? 1 : 0)
+                .description("Whether listings are served from the ledger read model")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        scheduler.execute(this::bootstrap);
+    }
+
+    @PreDestroy
+    void stop() {
+        stopped = true;
+        var current = call;
+        if (current != null) {
+            current.cancel("Shutting down", null);
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Whether the model holds a complete snapshot and is following the update stream.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * The ledger offset up to which the model reflects all transactions.
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * Completes once the model reflects the transaction at the given offset.
+     */
+    public CompletableFuture<Void> awaitOffset(long target) {
+        if (target <= offset) {
+            return CompletableFuture.completedFuture(null);
+        }
+        var future = new CompletableFuture<Void>();
+        synchronized (waiters) {
+            waiters.values().forEach(futures -> futures.removeIf(CompletableFuture::isDone));
+            waiters.values().removeIf(List::isEmpty);
+            waiters.computeIfAbsent(target, k -> new ArrayList<>()).add(future);
+        }
+        // the offset may have advanced before the waiter was registered
+        releaseWaiters(offset);
+        return future;
+    }
+
+    private void advanceTo(long newOffset) {
+        offset = newOffset;
+        releaseWaiters(newOffset);
+    }
+
+    private void releaseWaiters(long reachedOffset) {
+        var released = new ArrayList<CompletableFuture<Void>>();
+        synchronized (waiters) {
+            var reached = waiters.headMap(reachedOffset, true);
+            reached.values().forEach(released::addAll);
+            reached.clear();
+        }
+        released.forEach(f -> f.complete(null));
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Active licenses whose user or provider is the given party, in no particular order.
+     */
+    public List<Contract<License>> licenses(String party) {
+        return licenses.visibleTo(party);
+    }
+
+    /**
+     * Active renewal requests for the license with the given user and license number.
+     */
+    public List<Contract<LicenseRenewalRequest>> licenseRenewalRequests(String user, long licenseNum) {
+        return renewals.byKey(renewalKey(user, licenseNum));
+    }
+
+    /**
+     * IDs of the active allocations settling the given reference sent by the given party.
+     */
+    public List<String> allocationIds(String settlementRefId, String sender) {
+        return List.copyOf(allocationsByRef.getOrDefault(allocationKey(settlementRefId, sender), Set.of()));
+    }
+
+    public List<Contract<AppInstall>> appInstalls(String party) {
+        return appInstalls.visibleTo(party);
+    }
+
+    public List<Contract<AppInstallRequest>> appInstallRequests(String party) {
+        return appInstallRequests.visibleTo(party);
+    }
+
+    private static String renewalKey(String user, long licenseNum) {
+        return user + '\u0000' + licenseNum;
+    }
+
+    private static String allocationKey(String settlementRefId, String sender) {
+        return settlementRefId + '\u0000' + sender;
+    }
+
+    // Stream handling
+
+    private void bootstrap() {
+        ready = false;
+        state.getLedgerEnd(StateServiceOuterClass.GetLedgerEndRequest.getDefaultInstance(), new ResponseObserver<>() {
+            @Override
+            public void onNext(StateServiceOuterClass.GetLedgerEndResponse response) {
+                scheduler.execute(() -> loadSnapshot(response.getOffset()));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                retry("ledger end", t, LedgerReadModel.this::bootstrap);
+            }
+        });
+    }
+
+    private void loadSnapshot(long snapshotOffset) {
+        skippedEvent = false;
+        templates.forEach(LiveContracts::clear);
+        allocations.clear();
+        allocationsByRef.clear();
+        var request = StateServiceOuterClass.GetActiveContractsRequest.newBuilder()
+                .setActiveAtOffset(snapshotOffset)
+                .setEventFormat(eventFormat())
+                .build();
+        state.getActiveContracts(request, new ResponseObserver<>() {
+            @Override
+            public void onNext(StateServiceOuterClass.GetActiveContractsResponse response) {
+                if (response.hasActiveContract()) {
+                    var created = response.getActiveContract().getCreatedEvent();
+                    apply(() -> onCreated(created, snapshotOffset, false), created.getContractId(), snapshotOffset);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                retry("active contracts", t, LedgerReadModel.this::bootstrap);
+            }
+
+            @Override
+            public void onCompleted() {
+                if (skippedEvent) {
+                    retry("active contracts", new IllegalStateException("Failed to apply contracts of the snapshot"),
+                            LedgerReadModel.this::bootstrap);
+                    return;
+                }
+                ready = true;
+                advanceTo(snapshotOffset);
+                logger.info("Ledger read model loaded {} contracts at offset {}", size(), snapshotOffset);
+                listeners.forEach(l -> l.onReset(snapshotOffset));
+                subscribe();
+            }
+        });
+    }
+
+    private void subscribe() {
+        var request = UpdateServiceOuterClass.GetUpdatesRequest.newBuilder()
+                .setBeginExclusive(offset)
+                .setUpdateFormat(TransactionFilterOuterClass.UpdateFormat.newBuilder()
+                        .setIncludeTransactions(TransactionFilterOuterClass.TransactionFormat.newBuilder()
+                                .setEventFormat(eventFormat())
+                                .setTransactionShape(TransactionFilterOuterClass.TransactionShape.TRANSACTION_SHAPE_ACS_DELTA)))
+                .build();
+        updates.getUpdates(request, new ResponseObserver<>() {
+            // set once this stream was cancelled to reload the model; its remaining signals are ignored
+            private boolean abandoned;
+
+            @Override
+            public void onNext(UpdateServiceOuterClass.GetUpdatesResponse response) {
+                if (abandoned) {
+                    return;
+                }
+                if (response.hasTransaction()) {
+                    var transaction = response.getTransaction();
+                    long eventOffset = transaction.getOffset();
+                    skippedEvent = false;
+                    for (EventOuterClass.Event event : transaction.getEventsList()) {
+                        if (event.hasCreated()) {
+                            apply(() -> onCreated(event.getCreated(), eventOffset, true), event.getCreated().getContractId(), eventOffset);
+                        } else if (event.hasArchived()) {
+                            apply(() -> onArchived(event.getArchived(), eventOffset), event.getArchived().getContractId(), eventOffset);
+                        }
+                    }
+                    if (skippedEvent) {
+                        abandoned = true;
+                        call.cancel("Reloading the read model", null);
+                        retry("updates", new IllegalStateException("Failed to apply the transaction at offset " + eventOffset),
+                                LedgerReadModel.this::bootstrap);
+                        return;
+                    }
+                    advanceTo(transaction.getOffset());
+                } else if (response.hasOffsetCheckpoint()) {
+                    advanceTo(response.getOffsetCheckpoint().getOffset());
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (abandoned) {
+                    return;
+                }
+                Status.Code code = Status.fromThrowable(t).getCode();
+                boolean pruned = code == Status.Code.FAILED_PRECONDITION || code == Status.Code.OUT_OF_RANGE;
+                if (offset != failedOffset) {
+                    failedOffset = offset;
+                    failuresAtOffset = 0;
+                }
+                // a stream that keeps failing at the same offset would leave a stale model serving reads
+                boolean stuck = ++failuresAtOffset >= MAX_FAILURES_AT_OFFSET;
+                if (pruned || stuck) {
+                    ready = false;
+                    failedOffset = -1;
+                }
+                retry("updates", t, pruned || stuck ? LedgerReadModel.this::bootstrap : LedgerReadModel.this::subscribe);
+            }
+
+            @Override
+            public void onCompleted() {
+                if (abandoned) {
+                    return;
+                }
+                retry("updates", new IllegalStateException("Update stream completed"), LedgerReadModel.this::subscribe);
+            }
+        });
+    }
+
+    private void retry(String stream, Throwable t, Runnable action) {
+        if (stopped) {
+            return;
+        }
+        logger.warn("Ledger read model {} stream failed at offset {}, retrying in {}", stream, offset, retryDelay, t);
+        scheduler.schedule(action, retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private TransactionFilterOuterClass.EventFormat eventFormat() {
+        var filters = TransactionFilterOuterClass.Filters.newBuilder();
+        for (LiveContracts<?> template : templates) {
+            filters.addCumulative(TransactionFilterOuterClass.CumulativeFilter.newBuilder()
+                    .setTemplateFilter(TransactionFilterOuterClass.TemplateFilter.newBuilder()
+                            .setTemplateId(LedgerApi.toIdentifier(template.identifier))));
+        }
+        filters.addCumulative(TransactionFilterOuterClass.CumulativeFilter.newBuilder()
+                .setInterfaceFilter(TransactionFilterOuterClass.InterfaceFilter.newBuilder()
+                        .setInterfaceId(LedgerApi.toIdentifier(allocationId))
+                        .setIncludeInterfaceView(true)));
+        return TransactionFilterOuterClass.EventFormat.newBuilder()
+                .putFiltersByParty(party, filters.build())
+                // record labels are needed to read the allocation view by field name
+                .setVerbose(true)
+                .build();
+    }
+
+    // Event handling
+
+    /**
+     * Applies one event. An event the model cannot process is logged and skipped rather than failing the
+     * stream, which would only deliver it again from the same offset. The model stops serving right away;
+     * the snapshot or transaction being processed is then abandoned and the model bootstraps again.
+     */
+    private void apply(Runnable handler, String contractId, long eventOffset) {
+        try {
+            handler.run();
+        } catch (RuntimeException e) {
+            ready = false;
+            skippedEvent = true;
+            skippedEvents.increment();
+            logger.error("Ledger read model skipped contract {} at offset {}; reloading", contractId, eventOffset, e);
+        }
+    }
+
+    private void onCreated(EventOuterClass.CreatedEvent event, long eventOffset, boolean notify) {
+        for (LiveContracts<?> template : templates) {
+            if (template.matches(event.getTemplateId())) {
+                var change = template.add(event, eventOffset);
+                if (notify) {
+                    publish(change);
+                }
+                return;
+            }
+        }
+        for (EventOuterClass.InterfaceView view : event.getInterfaceViewsList()) {
+            if (matches(allocationId, view.getInterfaceId()) && view.hasViewValue()) {
+                var allocation = view.getViewValue();
+                String sender = field(allocation, "allocation", "transferLeg", "sender");
+                var ref = new AllocationRef(
+                        event.getContractId(),
+                        field(allocation, "allocation", "settlement", "settlementRef", "id"),
+                        sender,
+                        partySet(sender, field(allocation, "allocation", "transferLeg", "receiver"))
+                );
+                allocations.put(ref.contractId(), ref);
+                allocationsByRef.computeIfAbsent(allocationKey(ref.settlementRefId(), ref.sender()), k -> ConcurrentHashMap.newKeySet())
+                        .add(ref.contractId());
+                if (notify) {
+                    publish(new ContractChange(eventOffset, Allocation.class, ref.contractId(), true, Optional.empty(), ref.parties()));
+                }
+                return;
+            }
+        }
+    }
+
+    private void onArchived(EventOuterClass.ArchivedEvent event, long eventOffset) {
+        for (LiveContracts<?> template : templates) {
+            if (template.matches(event.getTemplateId())) {
+                template.remove(event.getContractId(), eventOffset).ifPresent(this::publish);
+                return;
+            }
+        }
+        var ref = allocations.remove(event.getContractId());
+        if (ref != null) {
+            unindex(allocationsByRef, allocationKey(ref.settlementRefId(), ref.sender()), ref.contractId());
+            publish(new ContractChange(eventOffset, Allocation.class, ref.contractId(), false, Optional.empty(), ref.parties()));
+        }
+    }
+
+    private void publish(ContractChange change) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onChange(change);
+            } catch (RuntimeException e) {
+                logger.warn("Ledger read model listener failed", e);
+            }
+        }
+    }
+
+    private int size() {
+        return templates.stream().mapToInt(t -> t.byId.size()).sum() + allocations.size();
+    }
+
+    private static Set<String> partySet(String... parties) {
+        return Set.copyOf(Arrays.asList(parties));
+    }
+
+    private static void unindex(Map<String, Set<String>> index, String k, String contractId) {
+        index.computeIfPresent(k, (ignored, ids) -> {
+            ids.remove(contractId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static boolean matches(Identifier id, ValueOuterClass.Identifier proto) {
+        return id.moduleName().equals(proto.getModuleName()) && id.entityName().equals(proto.getEntityName());
+    }
+
+    private static String field(ValueOuterClass.Record record, String... path) {
+        ValueOuterClass.Value value = null;
+        for (String label : path) {
+            var current = value == null ? record : value.getRecord();
+            value = current.getFieldsList().stream()
+                    .filter(f -> f.getLabel().equals(label))
+                    .findFirst()
+                    .map(ValueOuterClass.RecordField::getValue)
+                    .orElseThrow(() -> new IllegalArgumentException("Missing field " + label + " in " + String.join(".", path)));
+        }
+        return value.hasParty() ? value.getParty() : value.getText();
+    }
+
+    /**
+     * Live contracts of one template, indexed by contract ID, by party and optionally by a secondary key.
+     * Written only by the stream thread; read concurrently by request threads.
+     */
+    private class LiveContracts<T extends Template> {
+        private final Class<T> clazz;
+        private final Identifier identifier;
+        private final Function<T, Set<String>> parties;
+        private final Function<T, String> key;
+        private final Map<String, Contract<T>> byId = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> byParty = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> byKey = new ConcurrentHashMap<>();
+
+        LiveContracts(Class<T> clazz, Function<T, Set<String>> parties, Function<T, String> key) {
+            this.clazz = clazz;
+            this.identifier = Utils.getTemplateIdByClass(clazz);
+            this.parties = parties;
+            this.key = key;
+        }
+
+        boolean matches(ValueOuterClass.Identifier templateId) {
+            return LedgerReadModel.matches(identifier, templateId);
+        }
+
+        ContractChange add(EventOuterClass.CreatedEvent event, long eventOffset) {
+            var argument = ValueOuterClass.Value.newBuilder().setRecord(event.getCreateArguments()).build();
+            T payload = clazz.cast(proto2Dto.template(identifier).convert(argument));
+            String contractId = event.getContractId();
+            byId.put(contractId, new Contract<>(new ContractId<>(contractId), payload));
+            Set<String> visibleTo = parties.apply(payload);
+            visibleTo.forEach(p -> byParty.computeIfAbsent(p, k -> ConcurrentHashMap.newKeySet()).add(contractId));
+            if (key != null) {
+                byKey.computeIfAbsent(key.apply(payload), k -> ConcurrentHashMap.newKeySet()).add(contractId);
+            }
+            return new ContractChange(eventOffset, clazz, contractId, true, Optional.of(payload), visibleTo);
+        }
+
+        Optional<ContractChange> remove(String contractId, long eventOffset) {
+            var contract = byId.remove(contractId);
+            if (contract == null) {
+                return Optional.empty();
+            }
+            Set<String> visibleTo = parties.apply(contract.payload);
+            visibleTo.forEach(p -> unindex(byParty, p, contractId));
+            if (key != null) {
+                unindex(byKey, key.apply(contract.payload), contractId);
+            }
+            return Optional.of(new ContractChange(eventOffset, clazz, contractId, false, Optional.empty(), visibleTo));
+        }
+
+        List<Contract<T>> visibleTo(String party) {
+            return resolve(byParty.get(party));
+        }
+
+        List<Contract<T>> byKey(String k) {
+            return resolve(byKey.get(k));
+        }
+
+        private List<Contract<T>> resolve(Set<String> contractIds) {
+            if (contractIds == null) {
+                return List.of();
+            }
+            // an ID may be unindexed between the two lookups; skip it rather than fail
+            return contractIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+        }
+
+        void clear() {
+            byId.clear();
+            byParty.clear();
+            byKey.clear();
+        }
+    }
+
+    /**
+     * Stream observer that remembers its call so that {@link #stop()} can cancel it.
+     */
+    private abstract class ResponseObserver<RespT> implements ClientResponseObserver<Object, RespT> {
+        @Override
+        public void beforeStart(ClientCallStreamObserver<Object> requestStream) {
+            call = requestStream;
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
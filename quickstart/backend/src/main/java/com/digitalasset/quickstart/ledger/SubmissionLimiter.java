@@ -0,0 +1,189 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.ledger;
+
+import com.digitalasset.quickstart.config.LedgerConfig;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for ledger submissions with a concurrency limit that adapts to the submit-to-commit
+ * latency, after the gradient algorithm: the limit is scaled by the ratio of the long-term average latency
+ * to the latest one, so it shrinks as soon as the participant slows down and grows back while latency
+ * stays flat. Overload errors from the participant shrink it multiplicatively.
+ * <p>
+ * Submissions above the limit wait in a bounded FIFO queue without holding a thread. They are rejected
+ * with 429 when the queue is full and with 503 when they waited for longer than the queue timeout.
+ * The limit, calls in flight and queue length are reported as {@code ledger.limiter.*} gauges.
+ */
+class SubmissionLimiter {
+
+    // errors by which the participant signals that it is overloaded
+    private static final Set<Status.Code> OVERLOAD = Set.of(
+            Status.Code.RESOURCE_EXHAUSTED,
+            Status.Code.UNAVAILABLE,
+            Status.Code.DEADLINE_EXCEEDED
+    );
+    private static final double BACKOFF_RATIO = 0.9;
+    // weight of each sample in the long-term latency average
+    private static final double LONG_RTT_WEIGHT = 0.01;
+
+    private final LedgerConfig.Limiter config;
+    private final Counter queueFull;
+    private final Counter queueTimeout;
+
+    // guarded by this
+    private double limit;
+    private int inFlight;
+    private double longRttNanos;
+    private final Deque<CompletableFuture<Void>> queue = new ArrayDeque<>();
+
+    SubmissionLimiter(LedgerConfig.Limiter config, MeterRegistry meterRegistry) {
+        if (config.getMinLimit() < 1 || config.getMaxLimit() < config.getMinLimit()) {
+            throw new IllegalArgumentException("ledger.limiter limits must satisfy 1 <= min-limit <= max-limit");
+        }
+        this.config = config;
+        this.limit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), config.getInitialLimit()));
+        Gauge.builder("ledger.limiter.limit", this, l -> l.snapshot(() -> (int) l.limit))
+                .description("Current concurrency limit for ledger submissions")
+                .register(meterRegistry);
+        Gauge.builder("ledger.limiter.in-flight", this, l -> l.snapshot(() -> l.inFlight))
+                .description("Ledger submissions awaiting their transaction")
+                .register(meterRegistry);
+        Gauge.builder("ledger.limiter.queued", this, l -> l.snapshot(l.queue::size))
+                .description("Ledger submissions waiting for the concurrency limit")
+                .register(meterRegistry);
+        this.queueFull = Counter.builder("ledger.limiter.rejected")
+                .tag("reason", "queue-full")
+                .register(meterRegistry);
+        this.queueTimeout = Counter.builder("ledger.limiter.rejected")
+                .tag("reason", "queue-timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the submission once it is admitted under the limit. Its latency is fed back into the limit if
+     * measured is set, which is only meaningful for submissions that wait for their transaction, and the
+     * submission succeeded: rejections return early and would make the participant look faster than it is.
+     */
+    <T> CompletableFuture<T> run(Supplier<CompletableFuture<T>> submission, boolean measured) {
+        return acquire().thenCompose(v -> {
+            long start = System.nanoTime();
+            CompletableFuture<T> result;
+            try {
+                result = submission.get();
+            } catch (RuntimeException e) {
+                result = CompletableFuture.failedFuture(e);
+            }
+            return result.whenComplete((r, e) ->
+                    release(measured && e == null ? System.nanoTime() - start : -1, isOverload(e)));
+        });
+    }
+
+    private CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (inFlight < (int) limit && queue.isEmpty()) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (queue.size() >= config.getMaxQueue()) {
+                queueFull.increment();
+                return CompletableFuture.failedFuture(new LedgerOverloadedException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Too many ledger commands in flight", config.getQueueTimeout()));
+            }
+            var waiter = new CompletableFuture<Void>();
+            queue.addLast(waiter);
+            waiter.orTimeout(config.getQueueTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            return waiter.exceptionallyCompose(e -> {
+                synchronized (this) {
+                    queue.remove(waiter);
+                }
+                if (e instanceof TimeoutException) {
+                    queueTimeout.increment();
+                    return CompletableFuture.failedFuture(new LedgerOverloadedException(HttpStatus.SERVICE_UNAVAILABLE,
+                            "The ledger is not accepting commands fast enough", config.getQueueTimeout()));
+                }
+                return CompletableFuture.failedFuture(e);
+            });
+        }
+    }
+
+    private void release(long rttNanos, boolean overloaded) {
+        synchronized (this) {
+            inFlight--;
+            if (overloaded) {
+                limit = Math.max(config.getMinLimit(), limit * BACKOFF_RATIO);
+            } else if (rttNanos >= 0) {
+                update(rttNanos);
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * Hands free slots to waiters in arrival order. Waiters are completed outside the lock since that
+     * starts their submission on this thread.
+     */
+    private void dispatch() {
+        while (true) {
+            CompletableFuture<Void> waiter;
+            synchronized (this) {
+                if (inFlight >= (int) limit || queue.isEmpty()) {
+                    return;
+                }
+                waiter = queue.pollFirst();
+                inFlight++;
+            }
+            if (!waiter.complete(null)) {
+                // timed out meanwhile
+                synchronized (this) {
+                    inFlight--;
+                }
+            }
+        }
+    }
+
+    // guarded by this
+    private void update(long rttNanos) {
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+            return;
+        }
+        longRttNanos = longRttNanos * (1 - LONG_RTT_WEIGHT) + rttNanos * LONG_RTT_WEIGHT;
+        // after a slow period the average stays high; let it catch up with faster latencies quickly
+        if (longRttNanos > 2 * rttNanos) {
+            longRttNanos *= 0.95;
+        }
+        // do not grow the limit while it is not used
+        if (inFlight + 1 < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, config.getTolerance() * longRttNanos / rttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - config.getSmoothing()) + newLimit * config.getSmoothing();
+        limit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), newLimit));
+    }
+
+    private synchronized int snapshot(Supplier<Integer> value) {
+        return value.get();
+    }
+
+    private static boolean isOverload(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof StatusRuntimeException sre && OVERLOAD.contains(sre.getStatus().getCode());
+    }
+}
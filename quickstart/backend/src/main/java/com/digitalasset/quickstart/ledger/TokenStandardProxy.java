@@ -3,18 +3,28 @@
 
 package com.digitalasset.quickstart.ledger;
 
+import com.daml.ledger.api.v2.CommandsOuterClass;
+import com.daml.ledger.api.v2.ValueOuterClass;
 import com.digitalasset.quickstart.config.LedgerConfig;
 import com.digitalasset.quickstart.tokenstandard.openapi.ApiClient;
 import com.digitalasset.quickstart.tokenstandard.openapi.ApiException;
 import com.digitalasset.quickstart.tokenstandard.openapi.allocation.DefaultAllocationApi;
 import com.digitalasset.quickstart.tokenstandard.openapi.allocation.model.ChoiceContext;
+import com.digitalasset.quickstart.tokenstandard.openapi.allocation.model.DisclosedContract;
 import com.digitalasset.quickstart.tokenstandard.openapi.allocation.model.GetChoiceContextRequest;
 import com.digitalasset.quickstart.tokenstandard.openapi.metadata.DefaultMetadataApi;
 import com.digitalasset.quickstart.tokenstandard.openapi.metadata.model.GetRegistryInfoResponse;
 import com.digitalasset.quickstart.utility.TracingUtils;
 import com.digitalasset.quickstart.utility.TracingUtils.TracingContext;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.ByteString;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 
+import java.util.Base64;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
@@ -25,22 +35,51 @@ import org.springframework.stereotype.Component;
 
 import static com.digitalasset.quickstart.utility.TracingUtils.tracingCtx;
 
+/**
+ * Client of the token standard registry.
+ * <p>
+ * The registry admin party hardly ever changes, so it is fetched once and refreshed in the background every
+ * {@code ledger.registry-cache.admin-id-refresh} while the cached value keeps being served. Disclosed contracts
+ * returned in choice contexts, like {@code AmuletRules} and the open mining rounds, are the same for many
+ * allocations; they are kept decoded by contract ID, so their created event blobs are decoded once and then
+ * shared by all commands that disclose them. Concurrent callers missing the same entry wait for a single
+ * fetch or decode.
+ */
 @Component
 public class TokenStandardProxy {
     private final DefaultAllocationApi allocationApi;
     private final DefaultMetadataApi metadataApi;
+    // holds the single entry ADMIN_ID
+    private final AsyncLoadingCache<String, String> adminId;
+    private final Cache<String, CommandsOuterClass.DisclosedContract> disclosedContracts;
 
     private static final Logger logger = LoggerFactory.getLogger(TokenStandardProxy.class);
+    private static final String ADMIN_ID = "adminId";
 
-    public TokenStandardProxy(LedgerConfig ledgerConfig) {
+    public TokenStandardProxy(LedgerConfig ledgerConfig, MeterRegistry meterRegistry) {
         ApiClient apiClient = new ApiClient();
         apiClient.updateBaseUri(ledgerConfig.getRegistryBaseUri());
         this.allocationApi = new DefaultAllocationApi(apiClient);
         this.metadataApi = new DefaultMetadataApi(apiClient);
+        var config = ledgerConfig.getRegistryCache();
+        // a failed fetch is not cached; a failed refresh keeps the previous value
+        this.adminId = Caffeine.newBuilder()
+                .refreshAfterWrite(config.getAdminIdRefresh())
+                .buildAsync((key, executor) -> fetchRegistryAdminId());
+        this.disclosedContracts = Caffeine.newBuilder()
+                .expireAfterAccess(config.getDisclosedContractRetention())
+                .maximumSize(config.getMaxDisclosedContracts())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, disclosedContracts, "registry.disclosed-contracts");
     }
 
     @WithSpan
     public CompletableFuture<String> getRegistryAdminId() {
+        return adminId.get(ADMIN_ID);
+    }
+
+    private CompletableFuture<String> fetchRegistryAdminId() {
         var ctx = tracingCtx(logger, "getRegistryAdminId");
         return trace(ctx, () ->
                 metadataApi.getRegistryInfo().thenApply(GetRegistryInfoResponse::getAdminId)
@@ -57,6 +96,39 @@ public class TokenStandardProxy {
         );
     }
 
+    /**
+     * The Ledger API form of a contract disclosed by the registry, decoded once per contract ID.
+     */
+    public CommandsOuterClass.DisclosedContract toLedgerApiDisclosedContract(DisclosedContract dc) {
+        return disclosedContracts.get(dc.getContractId(), contractId -> {
+            ValueOuterClass.Identifier templateId = parseTemplateIdentifier(dc.getTemplateId());
+            byte[] blob = Base64.getDecoder().decode(dc.getCreatedEventBlob());
+
+            return CommandsOuterClass.DisclosedContract.newBuilder().setTemplateId(templateId).setContractId(contractId)
+                    .setCreatedEventBlob(ByteString.copyFrom(blob)).build();
+        });
+    }
+
+    private static ValueOuterClass.Identifier parseTemplateIdentifier(String templateIdStr) {
+        String[] parts = templateIdStr.split(":");
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Invalid templateId format: " + templateIdStr);
+        }
+        String packageId = parts[0];
+        String moduleName = parts[1];
+        StringBuilder entityNameBuilder = new StringBuilder();
+        for (int i = 2; i < parts.length; i++) {
+            if (i > 2) {
+                entityNameBuilder.append(":");
+            }
+            entityNameBuilder.append(parts[i]);
+        }
+        String entityName = entityNameBuilder.toString();
+
+        return ValueOuterClass.Identifier.newBuilder().setPackageId(packageId).setModuleName(moduleName)
+                .setEntityName(entityName).build();
+    }
+
     private <T> CompletableFuture<T> trace(
             TracingContext ctx,
             ThrowingSupplier<CompletableFuture<T>> supplier) {
@@ -0,0 +1,129 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.pqs;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Flow subscription that pulls rows from a cursor-backed {@link Stream} only as fast as the
+ * subscriber requests them. The stream is opened on first demand and closed on completion,
+ * error or cancellation; rows are pulled on the given executor. All signals to the subscriber
+ * are sent from the drain loop, so they never overlap.
+ */
+class CursorSubscription<T> implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super T> subscriber;
+    private final Supplier<Stream<T>> streamSupplier;
+    private final Executor executor;
+
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicBoolean done = new AtomicBoolean();
+    // an invalid request, signalled by the drain loop
+    private final AtomicReference<Throwable> pendingError = new AtomicReference<>();
+    private Stream<T> stream;
+    private Iterator<T> iterator;
+
+    CursorSubscription(Flow.Subscriber<? super T> subscriber, Supplier<Stream<T>> streamSupplier, Executor executor) {
+        this.subscriber = subscriber;
+        this.streamSupplier = streamSupplier;
+        this.executor = executor;
+    }
+
+    void start() {
+        subscriber.onSubscribe(this);
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            // the drain loop may be inside onNext; leave signalling the error to it (rule 3.9)
+            pendingError.compareAndSet(null, new IllegalArgumentException("Non-positive request: " + n));
+            n = 1;
+        }
+        // only the caller that moves demand away from zero schedules a drain
+        if (demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add) == 0) {
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+    }
+
+    @Override
+    public void cancel() {
+        // a running drain observes the flag and closes the cursor itself
+        if (done.compareAndSet(false, true) && demand.get() == 0) {
+            try {
+                executor.execute(this::close);
+            } catch (RejectedExecutionException e) {
+                // no drain is running, so the cursor can be closed here
+                close();
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            if (pendingError.get() != null) {
+                fail(pendingError.get());
+                return;
+            }
+            if (iterator == null && !done.get()) {
+                stream = streamSupplier.get();
+                iterator = stream.iterator();
+            }
+            long requested = demand.get();
+            while (!done.get()) {
+                long emitted = 0;
+                while (emitted < requested && !done.get()) {
+                    if (pendingError.get() != null) {
+                        fail(pendingError.get());
+                        return;
+                    }
+                    if (!iterator.hasNext()) {
+                        if (done.compareAndSet(false, true)) {
+                            subscriber.onComplete();
+                        }
+                        return;
+                    }
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+                requested = demand.addAndGet(-emitted);
+                if (requested == 0) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            fail(e);
+        } finally {
+            if (done.get()) {
+                close();
+            }
+        }
+    }
+
+    private void fail(Throwable t) {
+        if (done.compareAndSet(false, true)) {
+            close();
+            subscriber.onError(t);
+        }
+    }
+
+    private synchronized void close() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+}
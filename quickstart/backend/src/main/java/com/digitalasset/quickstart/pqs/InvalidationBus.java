@@ -0,0 +1,208 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.pqs;
+
+import com.digitalasset.quickstart.config.PostgresConfig;
+import com.digitalasset.quickstart.config.PqsConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Broadcasts cache invalidation keys to all backend replicas over Postgres LISTEN/NOTIFY on the PQS database.
+ * Invalidations are delivered to subscribers of this replica right away and, unless {@code pqs.invalidation.enabled}
+ * is turned off, to those of every other replica once its listener receives the notification.
+ * <p>
+ * Each replica listens on one dedicated connection outside the pool. Postgres drops notifications sent while
+ * a listener is disconnected, so after reconnecting the bus asks every subscriber to invalidate everything.
+ * That only restores coherence for subscribers that can reload from a shared source, like caches or the
+ * tenants kept in {@code TenantRegistrationStore}; state that exists only in replica memory cannot be
+ * resynchronized. Notifications are best effort otherwise too; caches should still bound the age of their entries.
+ */
+@Component
+public class InvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvalidationBus.class);
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final char SEPARATOR = '\n';
+
+    /**
+     * Cache or other replica-local state to keep coherent with changes made on any replica.
+     */
+    public interface Subscriber {
+        void invalidate(String key);
+
+        /**
+         * Called when invalidations may have been missed.
+         */
+        void invalidateAll();
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostgresConfig postgresConfig;
+    private final PqsConfig.Invalidation config;
+    // tells this replica's notifications apart from those of others, which were already delivered locally
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private volatile boolean stopped = false;
+    private volatile boolean listening = false;
+
+    public InvalidationBus(JdbcTemplate jdbcTemplate, PostgresConfig postgresConfig, PqsConfig pqsConfig, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postgresConfig = postgresConfig;
+        this.config = pqsConfig.getInvalidation();
+        if (!CHANNEL.matcher(config.getChannel()).matches()) {
+            throw new IllegalArgumentException("Invalid invalidation channel name: " + config.getChannel());
+        }
+        Gauge.builder("pqs.invalidation.listening", this, bus -> bus.listening ? 1 : 0)
+                .description("Whether this replica receives cache invalidations from other replicas")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        var threadFactory = new CustomizableThreadFactory("pqs-invalidation-");
+        threadFactory.setDaemon(true);
+        threadFactory.newThread(this::listen).start();
+    }
+
+    @PreDestroy
+    void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Registers a subscriber for the invalidation keys of a topic, e.g. a cache name.
+     */
+    public void subscribe(String topic, Subscriber subscriber) {
+        subscribers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(subscriber);
+    }
+
+    /**
+     * Invalidates the key on all replicas, this one included. Topics and keys must not contain newlines
+     * and must fit into a notification payload (8000 bytes).
+     */
+    public void publish(String topic, String key) {
+        if (topic.indexOf(SEPARATOR) >= 0 || key.indexOf(SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("Invalidation topics and keys must not contain newlines");
+        }
+        deliver(topic, key);
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            jdbcTemplate.query("select pg_notify(?, ?)", rs -> {
+            }, config.getChannel(), nodeId + SEPARATOR + topic + SEPARATOR + key);
+        } catch (DataAccessException e) {
+            logger.warn("Failed to broadcast invalidation of {} {}; other replicas may serve stale data", topic, key, e);
+        }
+    }
+
+    private void deliver(String topic, String key) {
+        for (Subscriber subscriber : subscribers.getOrDefault(topic, List.of())) {
+            try {
+                subscriber.invalidate(key);
+            } catch (RuntimeException e) {
+                logger.warn("Invalidation of {} {} failed", topic, key, e);
+            }
+        }
+    }
+
+    private void invalidateAll() {
+        subscribers.forEach((topic, topicSubscribers) -> topicSubscribers.forEach(subscriber -> {
+            try {
+                subscriber.invalidateAll();
+            } catch (RuntimeException e) {
+                logger.warn("Invalidation of all {} entries failed", topic, e);
+            }
+        }));
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (!stopped) {
+            try (Connection connection = connect()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + config.getChannel());
+                }
+                listening = true;
+                if (reconnecting) {
+                    logger.info("Resumed listening for cache invalidations; invalidating all cached entries");
+                    invalidateAll();
+                }
+                var pgConnection = connection.unwrap(PGConnection.class);
+                while (!stopped) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) config.getPollTimeout().toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                // anything escaping here would end the listener for good
+                logger.warn("Lost the cache invalidation listener connection; retrying in {}", config.getReconnectDelay(), e);
+            }
+            listening = false;
+            reconnecting = true;
+            if (!stopped) {
+                try {
+                    Thread.sleep(config.getReconnectDelay().toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        var properties = new Properties();
+        if (postgresConfig.getUsername() != null) {
+            properties.setProperty("user", postgresConfig.getUsername());
+        }
+        if (postgresConfig.getPassword() != null) {
+            properties.setProperty("password", postgresConfig.getPassword());
+        }
+        // lets the driver notice a dead server while blocked waiting for notifications
+        properties.setProperty("tcpKeepAlive", "true");
+        properties.setProperty("ApplicationName", "quickstart-invalidation");
+        return DriverManager.getConnection(postgresConfig.jdbcUrl(), properties);
+    }
+
+    private void receive(String payload) {
+        String[] parts = payload.split(String.valueOf(SEPARATOR), 3);
+        if (parts.length != 3) {
+            logger.warn("Ignoring malformed invalidation notification: {}", payload);
+        } else if (!parts[0].equals(nodeId)) {
+            deliver(parts[1], parts[2]);
+        }
+    }
+}
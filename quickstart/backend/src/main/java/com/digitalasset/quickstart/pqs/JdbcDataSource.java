@@ -4,15 +4,17 @@
 package com.digitalasset.quickstart.pqs;
 
 import com.digitalasset.quickstart.config.PostgresConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 
 /**
  * Configuration class that sets up a DataSource and JdbcTemplate for interacting with a Postgres database.
@@ -26,19 +28,58 @@ public class JdbcDataSource {
     private PostgresConfig postgresConfig;
 
     /**
-     * Creates a DataSource that connects to a PostgreSQL database using the configuration provided by PostgresConfig.
+     * Name of the DataSource bean that {@link Pqs#stream} takes cursor connections from.
+     */
+    public static final String PQS_STREAM_DATA_SOURCE = "pqsStreamDataSource";
+
+    /**
+     * Creates a pooled DataSource that connects to a PostgreSQL database using the configuration provided by PostgresConfig.
+     * The pool is started lazily on first use. Spring Boot binds every {@link HikariDataSource} bean to the actuator
+     * metrics registry, so pool usage is reported as {@code hikaricp.connections.*} tagged with {@code pool=pqs}.
      *
-     * @return A DataSource connected to the PostgreSQL database.
+     * @return A pooled DataSource connected to the PostgreSQL database.
      */
-    @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+    @Bean(destroyMethod = "close")
+    @Primary
+    public HikariDataSource dataSource() {
+        PostgresConfig.Pool pool = postgresConfig.getPool();
+        logger.info("Connecting to {} as {} (pool min idle {}, max size {})", postgresConfig.jdbcUrl(), postgresConfig.getUsername(), pool.getMinIdle(), pool.getMaxSize());
+        HikariDataSource dataSource = newDataSource("pqs", pool.getMaxSize(), pool.getLeakDetectionThreshold());
+        dataSource.setMinimumIdle(pool.getMinIdle());
+        return dataSource;
+    }
+
+    /**
+     * Creates the pool of connections held by streaming cursors, reported with {@code pool=pqs-stream}.
+     * Cursors hold their connection for a whole export, so they get their own pool and leak detection threshold:
+     * they neither starve short queries of connections nor are logged as leaks by the main pool.
+     */
+    @Bean(name = PQS_STREAM_DATA_SOURCE, destroyMethod = "close")
+    public HikariDataSource streamDataSource() {
+        PostgresConfig.StreamPool pool = postgresConfig.getStreamPool();
+        HikariDataSource dataSource = newDataSource("pqs-stream", pool.getMaxSize(), pool.getLeakDetectionThreshold());
+        dataSource.setMinimumIdle(0);
+        return dataSource;
+    }
+
+    private HikariDataSource newDataSource(String poolName, int maxSize, Duration leakDetectionThreshold) {
+        PostgresConfig.Pool pool = postgresConfig.getPool();
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(poolName);
         dataSource.setDriverClassName("org.postgresql.Driver");
-        String url = String.format("jdbc:postgresql://%s:%d/%s", postgresConfig.getHost(), postgresConfig.getPort(), postgresConfig.getDatabase());
-        logger.info("Connecting to {} as {}", url, postgresConfig.getUsername());
-        dataSource.setUrl(url);
+        dataSource.setJdbcUrl(postgresConfig.jdbcUrl());
         dataSource.setUsername(postgresConfig.getUsername());
         dataSource.setPassword(postgresConfig.getPassword()); // TODO: Make password optional
+        dataSource.setMaximumPoolSize(maxSize);
+        dataSource.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+        dataSource.setIdleTimeout(pool.getIdleTimeout().toMillis());
+        dataSource.setMaxLifetime(pool.getMaxLifetime().toMillis());
+        dataSource.setKeepaliveTime(pool.getKeepaliveTime().toMillis());
+        dataSource.setValidationTimeout(pool.getValidationTimeout().toMillis());
+        dataSource.setLeakDetectionThreshold(leakDetectionThreshold.toMillis());
+        // PqsQuery constants issue identical SQL strings, so their server-side plans can be reused
+        dataSource.addDataSourceProperty("prepareThreshold", pool.getPrepareThreshold());
+        dataSource.addDataSourceProperty("preparedStatementCacheQueries", pool.getPreparedStatementCacheQueries());
         return dataSource;
     }
 
@@ -0,0 +1,60 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.pqs;
+
+import com.digitalasset.quickstart.config.PqsConfig;
+import com.digitalasset.transcode.java.Template;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of decoded contract payloads keyed by contract ID and template.
+ * Daml contracts are immutable, so a payload decoded once never has to be decoded again.
+ * Entries are weighed by the length of their JSON payload and evicted with W-TinyLFU.
+ * Hit and miss counts are reported as {@code cache.*} metrics tagged {@code cache=pqs.payloads}.
+ */
+@Component
+public class PayloadCache {
+
+    private record Key(String contractId, String templateId) {
+    }
+
+    private record Entry(Template payload, int weight) {
+    }
+
+    private final Cache<Key, Entry> cache;
+
+    public PayloadCache(PqsConfig pqsConfig, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(pqsConfig.getPayloadCache().getMaximumWeight())
+                .weigher((Key key, Entry entry) -> entry.weight())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "pqs.payloads");
+    }
+
+    /**
+     * Returns the cached payload of the contract, or null if it is not cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Template> T getIfPresent(String contractId, String templateId) {
+        Entry entry = cache.getIfPresent(new Key(contractId, templateId));
+        return entry == null ? null : (T) entry.payload();
+    }
+
+    /**
+     * Returns the cached payload of the contract, decoding and caching it on a miss.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Template> T get(String contractId, String templateId, String payload, Supplier<T> decode) {
+        Entry entry = cache.get(new Key(contractId, templateId),
+                key -> new Entry(decode.get(), contractId.length() + payload.length()));
+        return (T) entry.payload();
+    }
+}
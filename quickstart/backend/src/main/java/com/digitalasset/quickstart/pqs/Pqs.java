@@ -12,22 +12,40 @@ import com.digitalasset.transcode.java.Template;
 import com.digitalasset.transcode.java.Utils;
 import com.digitalasset.transcode.schema.Dictionary;
 import com.digitalasset.transcode.schema.Identifier;
+import com.digitalasset.quickstart.config.PqsConfig;
+import com.digitalasset.quickstart.utility.TemplateIds;
 import daml.Daml;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.stereotype.Component;
 
 /**
@@ -37,13 +55,28 @@ import org.springframework.stereotype.Component;
 public class Pqs {
 
     private static final Logger logger = LoggerFactory.getLogger(Pqs.class);
+    private static final String PAYLOADS_SQL = "select contract_id, payload from active(?) where contract_id = any(?)";
 
     private final JdbcTemplate jdbcTemplate;
+    private final DataSource streamDataSource;
+    private final Executor executor;
+    private final int streamFetchSize;
+    private final PayloadCache payloadCache;
     private final Dictionary<Converter<String, Object>> json2Dto;
 
     @Autowired
-    public Pqs(JdbcTemplate jdbcTemplate) {
+    public Pqs(
+            JdbcTemplate jdbcTemplate,
+            @Qualifier(JdbcDataSource.PQS_STREAM_DATA_SOURCE) DataSource streamDataSource,
+            @Qualifier(PqsExecutorConfiguration.PQS_EXECUTOR) Executor executor,
+            PqsConfig pqsConfig,
+            PayloadCache payloadCache
+    ) {
         this.jdbcTemplate = jdbcTemplate;
+        this.streamDataSource = streamDataSource;
+        this.executor = executor;
+        this.streamFetchSize = pqsConfig.getStreamFetchSize();
+        this.payloadCache = payloadCache;
         this.json2Dto = Utils.getConverters(new JsonStringCodec(true, true, false), Daml.ENTITIES);
     }
 
@@ -52,33 +85,59 @@ public class Pqs {
      */
     @WithSpan
     public <T extends Template> CompletableFuture<List<Contract<T>>> active(Class<T> clazz) {
-        Identifier identifier = Utils.getTemplateIdByClass(clazz);
+        Identifier identifier = TemplateIds.of(clazz);
         var ctx = tracingCtx(logger, "active", "templateId", identifier.qualifiedName());
-        return runAndTraceAsync(ctx, () -> {
-            String sql = "select contract_id, payload from active(?)";
-            return jdbcTemplate.query(sql, new PqsContractRowMapper<>(identifier), identifier.qualifiedName());
-        });
+        return runAndTraceAsync(ctx, executor, () ->
+                this.<T>activeByIds(identifier, "select contract_id from active(?)", identifier.qualifiedName()));
     }
 
     /**
-     * Retrieves all active contracts of a specific template type with a custom
-     * WHERE clause.
+     * Retrieves the active contracts selected by a query, binding the given parameter values in order.
      */
     @WithSpan
-    public <T extends Template> CompletableFuture<List<Contract<T>>> activeWhere(
-            Class<T> clazz,
-            String whereClause,
-            Object... params
-    ) {
-        Identifier identifier = Utils.getTemplateIdByClass(clazz);
-        var ctx = tracingCtx(logger, "activeWhere",
+    public <T extends Template> CompletableFuture<List<Contract<T>>> active(PqsQuery<T> query, Object... params) {
+        Identifier identifier = TemplateIds.of(query.template());
+        var ctx = tracingCtx(logger, "active",
                 "templateId", identifier.qualifiedName(),
-                "whereClause", whereClause
+                "sql", query.sql()
         );
-        return runAndTraceAsync(ctx, () -> {
-            String sql = "select contract_id, payload from active(?) where " + whereClause;
-            return jdbcTemplate.query(sql, new PqsContractRowMapper<>(identifier), combineParams(identifier.qualifiedName(), params));
-        });
+        Object[] args = query.bind(params);
+        return runAndTraceAsync(ctx, executor, () -> this.<T>activeByIds(identifier, query.idSql(), args));
+    }
+
+    /**
+     * Retrieves the contracts selected by an unlimited query that were created between the given ledger
+     * offsets, whether or not they are still active.
+     */
+    @WithSpan
+    public <T extends Template> CompletableFuture<List<Contract<T>>> createdBetween(
+            PqsQuery<T> query, long fromOffset, long toOffset, Object... params) {
+        Identifier identifier = TemplateIds.of(query.template());
+        var ctx = tracingCtx(logger, "createdBetween",
+                "templateId", identifier.qualifiedName(),
+                "fromOffset", fromOffset,
+                "toOffset", toOffset
+        );
+        Object[] args = query.bindCreated(fromOffset, toOffset, params);
+        return runAndTraceAsync(ctx, executor, () ->
+                jdbcTemplate.query(query.createdSql(), new PqsContractRowMapper<>(identifier), args));
+    }
+
+    /**
+     * Retrieves the IDs of the contracts selected by an unlimited query that were archived between the
+     * given ledger offsets. The predicate applies to the payloads the contracts were created with.
+     */
+    @WithSpan
+    public <T extends Template> CompletableFuture<List<String>> archivedBetween(
+            PqsQuery<T> query, long fromOffset, long toOffset, Object... params) {
+        var ctx = tracingCtx(logger, "archivedBetween",
+                "templateId", TemplateIds.qualifiedName(query.template()),
+                "fromOffset", fromOffset,
+                "toOffset", toOffset
+        );
+        Object[] args = query.bindArchived(fromOffset, toOffset, params);
+        return runAndTraceAsync(ctx, executor, () ->
+                jdbcTemplate.queryForList(query.archivedSql(), String.class, args));
     }
 
     /**
@@ -89,29 +148,139 @@ public class Pqs {
             Class<T> clazz,
             Object... params
     ) {
-        Identifier identifier = Utils.getTemplateIdByClass(clazz);
+        Identifier identifier = TemplateIds.of(clazz);
         var ctx = tracingCtx(logger, "PQS contractByContractId",
                 "templateId", identifier.qualifiedName(),
                 "params", params
         );
-        return runAndTraceAsync(ctx, () -> {
-            String sql = "select contract_id, payload from active(?) where contract_id = ?";
-            try {
-                return Optional.ofNullable(jdbcTemplate.queryForObject(sql, new PqsContractRowMapper<>(identifier),
-                    combineParams(identifier.qualifiedName(), params)));
-            } catch (EmptyResultDataAccessException e) {
-                return Optional.empty();
+        return runAndTraceAsync(ctx, executor, () -> {
+            String sql = "select contract_id from active(?) where contract_id = ?";
+            return this.<T>activeByIds(identifier, sql, combineParams(identifier.qualifiedName(), params))
+                    .stream()
+                    .findFirst();
+        });
+    }
+
+    /**
+     * Streams the active contracts selected by a query through a server-side cursor.
+     * Rows are fetched {@code pqs.stream-fetch-size} at a time and decoded as they arrive, so memory use
+     * does not grow with the size of the active contract set. The stream holds a connection of the
+     * {@code postgres.stream-pool} and runs on the calling thread; it must be closed, e.g. with try-with-resources.
+     */
+    public <T extends Template> Stream<Contract<T>> stream(PqsQuery<T> query, Object... params) {
+        Identifier identifier = TemplateIds.of(query.template());
+        String sql = query.sql();
+        logger.atInfo()
+                .addKeyValue("templateId", identifier.qualifiedName())
+                .addKeyValue("sql", sql)
+                .log("stream");
+        Object[] args = query.bind(params);
+        Connection connection = DataSourceUtils.getConnection(streamDataSource);
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            // the Postgres driver only uses a cursor outside of auto-commit mode
+            connection.setAutoCommit(false);
+            ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(streamFetchSize);
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
             }
+            rs = ps.executeQuery();
+            var cursor = new CursorSpliterator<>(rs, new PqsContractRowMapper<T>(identifier), sql);
+            var statement = ps;
+            var resultSet = rs;
+            return StreamSupport.stream(cursor, false).onClose(() -> {
+                JdbcUtils.closeResultSet(resultSet);
+                JdbcUtils.closeStatement(statement);
+                releaseCursorConnection(connection);
+            });
+        } catch (SQLException e) {
+            JdbcUtils.closeResultSet(rs);
+            JdbcUtils.closeStatement(ps);
+            releaseCursorConnection(connection);
+            throw jdbcTemplate.getExceptionTranslator().translate("stream", sql, e);
+        }
+    }
+
+    /**
+     * Publishes the active contracts selected by a query.
+     * Rows are read from the cursor on the PQS executor only as the subscriber requests them.
+     * The cursor holds a connection of the {@code postgres.stream-pool} until the subscription ends; subscriptions
+     * running longer than its {@code leak-detection-threshold} are logged as suspected leaks.
+     */
+    public <T extends Template> Flow.Publisher<Contract<T>> publish(PqsQuery<T> query, Object... params) {
+        return subscriber -> new CursorSubscription<>(subscriber, () -> stream(query, params), executor).start();
+    }
+
+    private void releaseCursorConnection(Connection connection) {
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            logger.warn("Failed to reset cursor connection", e);
+        }
+        DataSourceUtils.releaseConnection(connection, streamDataSource);
+    }
+
+    /**
+     * Retrieves the active contracts among the given contract IDs in a single round trip.
+     * IDs that are not active contracts of the template are absent from the result.
+     */
+    @WithSpan
+    public <T extends Template> CompletableFuture<List<Contract<T>>> contractsByIds(
+            Class<T> clazz,
+            Collection<String> contractIds
+    ) {
+        Identifier identifier = TemplateIds.of(clazz);
+        var ctx = tracingCtx(logger, "PQS contractsByIds",
+                "templateId", identifier.qualifiedName(),
+                "count", contractIds.size()
+        );
+        return runAndTraceAsync(ctx, executor, () -> {
+            String sql = "select contract_id from active(?) where contract_id = any(?)";
+            return this.<T>activeByIds(identifier, sql, identifier.qualifiedName(), contractIds.toArray(String[]::new));
         });
     }
 
+    /**
+     * Runs a query that selects only contract IDs from {@code active(?)} and returns the contracts in row
+     * order. Payloads are taken from the payload cache, and those not cached are read and decoded in one
+     * more round trip, so unchanged contracts are not sent over the wire again. A contract archived between
+     * the two queries is left out.
+     */
+    private <T extends Template> List<Contract<T>> activeByIds(Identifier identifier, String sql, Object... args) {
+        List<String> ids = jdbcTemplate.queryForList(sql, String.class, args);
+        String templateId = identifier.qualifiedName();
+        Map<String, T> payloads = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String id : ids) {
+            T payload = payloadCache.getIfPresent(id, templateId);
+            if (payload != null) {
+                payloads.put(id, payload);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            jdbcTemplate.query(PAYLOADS_SQL, (RowCallbackHandler) rs -> {
+                String id = rs.getString("contract_id");
+                payloads.put(id, this.<T>decode(identifier, id, rs.getString("payload")));
+            }, templateId, misses.toArray(String[]::new));
+        }
+        return ids.stream()
+                .filter(payloads::containsKey)
+                .map(id -> new Contract<>(new ContractId<T>(id), payloads.get(id)))
+                .toList();
+    }
+
     @WithSpan
     public CompletableFuture<Void> query(String sql, RowCallbackHandler callback, Object... params) {
         var ctx = tracingCtx(logger, "query",
                 "sql", sql,
                 "params", params
         );
-        return runAndTraceAsync(ctx, () -> {
+        return runAndTraceAsync(ctx, executor, () -> {
             jdbcTemplate.query(sql, callback, params);
             return null;
         });
@@ -128,6 +297,46 @@ public class Pqs {
         return json2Dto;
     }
 
+    /**
+     * Decodes the JSON payload of a contract, reusing an earlier decoding of the same contract if cached.
+     */
+    public <T extends Template> T decode(Class<T> clazz, String contractId, String payload) {
+        return clazz.cast(decode(TemplateIds.of(clazz), contractId, payload));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Template> T decode(Identifier templateId, String contractId, String payload) {
+        return payloadCache.get(contractId, templateId.qualifiedName(), payload,
+                () -> (T) json2Dto.template(templateId).convert(payload));
+    }
+
+    private class CursorSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+        private final ResultSet rs;
+        private final RowMapper<T> rowMapper;
+        private final String sql;
+        private int rowNum = 0;
+
+        CursorSpliterator(ResultSet rs, RowMapper<T> rowMapper, String sql) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.rs = rs;
+            this.rowMapper = rowMapper;
+            this.sql = sql;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            try {
+                if (!rs.next()) {
+                    return false;
+                }
+                action.accept(rowMapper.mapRow(rs, rowNum++));
+                return true;
+            } catch (SQLException e) {
+                throw jdbcTemplate.getExceptionTranslator().translate("stream", sql, e);
+            }
+        }
+    }
+
     private class PqsContractRowMapper<T extends Template> implements RowMapper<Contract<T>> {
         private final Identifier templateId;
 
@@ -138,9 +347,10 @@ public class Pqs {
         @WithSpan
         @Override
         public Contract<T> mapRow(ResultSet rs, int rowNum) throws SQLException {
+            String contractId = rs.getString("contract_id");
             return new Contract<>(
-                    new ContractId<>(rs.getString("contract_id")),
-                    (T) json2Dto.template(templateId).convert(rs.getString("payload"))
+                    new ContractId<>(contractId),
+                    decode(templateId, contractId, rs.getString("payload"))
             );
         }
     }
@@ -0,0 +1,94 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.pqs;
+
+import com.digitalasset.quickstart.config.PostgresConfig;
+import com.digitalasset.quickstart.config.PqsConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuration of the executor that runs blocking JDBC work issued by {@link Pqs}.
+ * Keeping PQS queries off the common ForkJoinPool prevents slow queries from starving
+ * unrelated asynchronous stages of the application.
+ */
+@Configuration
+public class PqsExecutorConfiguration {
+
+    public static final String PQS_EXECUTOR = "pqsExecutor";
+
+    private static final Logger logger = LoggerFactory.getLogger(PqsExecutorConfiguration.class);
+
+    @Bean(name = PQS_EXECUTOR)
+    public Executor pqsExecutor(PqsConfig pqsConfig, PostgresConfig postgresConfig, MeterRegistry meterRegistry) {
+        PqsConfig.Executor config = pqsConfig.getExecutor();
+        int threads = config.getThreads() > 0 ? config.getThreads() : postgresConfig.getPool().getMaxSize();
+        Counter rejected = Counter.builder("pqs.executor.rejected")
+                .description("PQS queries rejected because the executor queue was full")
+                .register(meterRegistry);
+        logger.info("PQS executor mode {} with {} threads and queue capacity {}", config.getMode(), threads, config.getQueueCapacity());
+        return switch (config.getMode()) {
+            case BOUNDED -> boundedExecutor(threads, config.getQueueCapacity(), rejected, meterRegistry);
+            case VIRTUAL -> virtualThreadExecutor(threads + config.getQueueCapacity(), rejected, meterRegistry);
+        };
+    }
+
+    private static Executor boundedExecutor(int threads, int queueCapacity, Counter rejected, MeterRegistry meterRegistry) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("pqs-"),
+                (task, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("PQS executor queue is full (capacity " + queueCapacity + ")");
+                });
+        executor.allowCoreThreadTimeOut(true);
+        // reports executor.queued, executor.queue.remaining, executor.active, executor.pool.size tagged name=pqs
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "pqs");
+    }
+
+    private static Executor virtualThreadExecutor(int maxInFlight, Counter rejected, MeterRegistry meterRegistry) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("pqs-");
+        executor.setVirtualThreads(true);
+        AtomicInteger inFlight = new AtomicInteger();
+        Gauge.builder("pqs.executor.in.flight", inFlight, AtomicInteger::get)
+                .description("PQS queries submitted to virtual threads and not yet finished")
+                .register(meterRegistry);
+        return task -> {
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                rejected.increment();
+                throw new RejectedExecutionException("Too many PQS queries in flight (limit " + maxInFlight + ")");
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                throw e;
+            }
+        };
+    }
+}
@@ -0,0 +1,75 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.pqs;
+
+import java.util.Arrays;
+
+/**
+ * A column or payload field of a PQS contract that {@link PqsQuery} predicates and orderings refer to.
+ * Payload fields are addressed by the path of Daml record field names leading to them.
+ */
+public final class PqsField {
+
+    /**
+     * The contract ID column.
+     */
+    public static final PqsField CONTRACT_ID = new PqsField("contract_id");
+
+    private final String sql;
+
+    private PqsField(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * A Text (or Party) payload field, e.g. {@code text("allocation", "transferLeg", "sender")}.
+     */
+    public static PqsField text(String... path) {
+        return new PqsField(jsonPath(path));
+    }
+
+    /**
+     * An Int payload field, compared numerically.
+     */
+    public static PqsField int64(String... path) {
+        return new PqsField("(" + jsonPath(path) + ")::bigint");
+    }
+
+    private static String jsonPath(String... path) {
+        if (path.length == 0) {
+            throw new IllegalArgumentException("Empty payload field path");
+        }
+        for (String segment : path) {
+            if (!segment.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+                throw new IllegalArgumentException("Invalid payload field name: " + segment);
+            }
+        }
+        var sql = new StringBuilder("payload");
+        Arrays.stream(path, 0, path.length - 1).forEach(segment -> sql.append("->'").append(segment).append("'"));
+        return sql.append("->>'").append(path[path.length - 1]).append("'").toString();
+    }
+
+    public PqsPredicate eq() {
+        return new PqsPredicate(sql + " = ?", 1);
+    }
+
+    public PqsPredicate gt() {
+        return new PqsPredicate(sql + " > ?", 1);
+    }
+
+    public PqsPredicate lt() {
+        return new PqsPredicate(sql + " < ?", 1);
+    }
+
+    /**
+     * Matches any element of an array parameter.
+     */
+    public PqsPredicate in() {
+        return new PqsPredicate(sql + " = any(?)", 1);
+    }
+
+    String sql() {
+        return sql;
+    }
+}
@@ -0,0 +1,38 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.pqs;
+
+import com.digitalasset.quickstart.utility.TemplateIds;
+import com.digitalasset.transcode.java.Template;
+
+/**
+ * An index on the PQS contracts of one template that a repository query relies on.
+ *
+ * @param name       index name; lower case and at most 63 characters so it matches {@code pg_indexes} verbatim
+ * @param template   template whose contracts are indexed
+ * @param expression parenthesized index expression(s) over {@code payload}, e.g. {@code ((payload->>'user'))}
+ * @param method     index access method
+ */
+public record PqsIndex(String name, Class<? extends Template> template, String expression, Method method) {
+
+    public enum Method {
+        BTREE, HASH;
+
+        String sqlName() {
+            return name().toLowerCase();
+        }
+    }
+
+    public static PqsIndex btree(String name, Class<? extends Template> template, String expression) {
+        return new PqsIndex(name, template, expression, Method.BTREE);
+    }
+
+    public static PqsIndex hash(String name, Class<? extends Template> template, String expression) {
+        return new PqsIndex(name, template, expression, Method.HASH);
+    }
+
+    String templateName() {
+        return TemplateIds.qualifiedName(template);
+    }
+}
@@ -0,0 +1,37 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.pqs;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint exposing the PQS indexes declared by the repositories.
+ * {@code GET /actuator/pqsindexes} reports their state, {@code POST /actuator/pqsindexes} creates missing ones.
+ * Both require the ADMIN role.
+ */
+@Component
+@Endpoint(id = "pqsindexes")
+public class PqsIndexEndpoint {
+
+    private final PqsIndexProvisioner provisioner;
+
+    public PqsIndexEndpoint(PqsIndexProvisioner provisioner) {
+        this.provisioner = provisioner;
+    }
+
+    @ReadOperation
+    public List<PqsIndexProvisioner.IndexStatus> report() {
+        return provisioner.report();
+    }
+
+    @WriteOperation
+    public List<PqsIndexProvisioner.IndexStatus> provision() {
+        return provisioner.provision();
+    }
+}
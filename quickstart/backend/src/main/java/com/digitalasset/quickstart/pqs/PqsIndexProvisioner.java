@@ -0,0 +1,109 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.pqs;
+
+import com.digitalasset.quickstart.config.PqsConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies, and optionally creates, the expression indexes declared by {@link PqsIndexRequirements} beans.
+ * Indexes are created with the PQS {@code create_index_for_template} function, which places them on the
+ * table partition holding the template's contracts. Missing indexes are logged at startup; the current
+ * state is available and can be provisioned on demand through the {@code pqsindexes} actuator endpoint.
+ */
+@Component
+public class PqsIndexProvisioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PqsIndexProvisioner.class);
+
+    public enum State {PRESENT, MISSING, CREATED, FAILED}
+
+    public record IndexStatus(String name, String template, String expression, String method, State state, String error) {
+        static IndexStatus of(PqsIndex index, State state, String error) {
+            return new IndexStatus(index.name(), index.templateName(), index.expression(), index.method().sqlName(), state, error);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<PqsIndexRequirements> requirements;
+    private final PqsConfig.Indexes config;
+
+    public PqsIndexProvisioner(JdbcTemplate jdbcTemplate, List<PqsIndexRequirements> requirements, PqsConfig pqsConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requirements = requirements;
+        this.config = pqsConfig.getIndexes();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void onStartup() {
+        if (!config.isCheckOnStartup()) {
+            return;
+        }
+        try {
+            List<IndexStatus> statuses = config.isProvisionOnStartup() ? provision() : report();
+            statuses.stream()
+                    .filter(s -> s.state() == State.MISSING || s.state() == State.FAILED)
+                    .forEach(s -> logger.warn("PQS index {} on {} {} {}: {}",
+                            s.name(), s.template(), s.expression(), s.state(), s.error() != null ? s.error() : "not provisioned"));
+        } catch (DataAccessException e) {
+            logger.warn("Could not check PQS indexes", e);
+        }
+    }
+
+    /**
+     * Reports whether each declared index exists.
+     */
+    public List<IndexStatus> report() {
+        return declaredIndexes().stream()
+                .map(index -> IndexStatus.of(index, exists(index) ? State.PRESENT : State.MISSING, null))
+                .toList();
+    }
+
+    /**
+     * Creates every declared index that does not exist yet and reports the outcome per index.
+     * A failure to create one index does not prevent the others from being created.
+     */
+    public List<IndexStatus> provision() {
+        var statuses = new ArrayList<IndexStatus>();
+        for (PqsIndex index : declaredIndexes()) {
+            if (exists(index)) {
+                statuses.add(IndexStatus.of(index, State.PRESENT, null));
+                continue;
+            }
+            try {
+                jdbcTemplate.query("select create_index_for_template(?, ?, ?, ?)", rs -> {
+                        },
+                        index.templateName(), index.name(), index.expression(), index.method().sqlName());
+                logger.info("Created PQS index {} on {} {}", index.name(), index.templateName(), index.expression());
+                statuses.add(IndexStatus.of(index, exists(index) ? State.CREATED : State.MISSING, null));
+            } catch (DataAccessException e) {
+                statuses.add(IndexStatus.of(index, State.FAILED, e.getMostSpecificCause().getMessage()));
+            }
+        }
+        return statuses;
+    }
+
+    private boolean exists(PqsIndex index) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select exists(select 1 from pg_indexes where indexname = ?)", Boolean.class, index.name()));
+    }
+
+    private List<PqsIndex> declaredIndexes() {
+        // several repositories may declare the same index; keep the first declaration per name
+        Map<String, PqsIndex> byName = new LinkedHashMap<>();
+        requirements.forEach(r -> r.requiredIndexes().forEach(index -> byName.putIfAbsent(index.name(), index)));
+        return List.copyOf(byName.values());
+    }
+}
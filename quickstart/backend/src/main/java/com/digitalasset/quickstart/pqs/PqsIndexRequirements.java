@@ -0,0 +1,15 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.pqs;
+
+import java.util.List;
+
+/**
+ * Implemented by beans that query PQS to declare the indexes their queries need.
+ * See {@link PqsIndexProvisioner}.
+ */
+public interface PqsIndexRequirements {
+
+    List<PqsIndex> requiredIndexes();
+}
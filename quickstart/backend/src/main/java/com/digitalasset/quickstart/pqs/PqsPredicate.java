@@ -0,0 +1,22 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.pqs;
+
+/**
+ * A parameterized condition on PQS contracts, built from {@link PqsField}s.
+ * Values are not part of the predicate; they are bound in order when the query runs.
+ *
+ * @param sql   SQL condition with one {@code ?} placeholder per parameter
+ * @param arity number of parameters
+ */
+public record PqsPredicate(String sql, int arity) {
+
+    public PqsPredicate and(PqsPredicate other) {
+        return new PqsPredicate("(" + sql + ") and (" + other.sql + ")", arity + other.arity);
+    }
+
+    public PqsPredicate or(PqsPredicate other) {
+        return new PqsPredicate("(" + sql + ") or (" + other.sql + ")", arity + other.arity);
+    }
+}
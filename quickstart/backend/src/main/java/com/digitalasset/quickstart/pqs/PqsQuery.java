@@ -0,0 +1,142 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.pqs;
+
+import com.digitalasset.quickstart.utility.TemplateIds;
+import com.digitalasset.transcode.java.Template;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Shape of a query for active contracts of one template: a predicate, an ordering and an optional limit.
+ * The SQL is compiled when the query is built and parameter values are bound only when it runs,
+ * so a query kept in a constant always issues the same SQL string. The Postgres driver then reuses
+ * its server-side prepared statement and plan for it on every pooled connection.
+ * <p>
+ * Parameters are bound in order: those of the predicates as they were added, then the limit.
+ * <p>
+ * An unlimited query can also run over a range of ledger offsets through the PQS {@code creates()} and
+ * {@code archives()} functions, returning the matching contracts created, or archived, in the range.
+ */
+public final class PqsQuery<T extends Template> {
+
+    private final Class<T> template;
+    private final Optional<PqsPredicate> where;
+    private final List<PqsField> orderBy;
+    private final boolean limited;
+    private final String sql;
+    private final String idSql;
+    private final String createdSql;
+    private final String archivedSql;
+
+    private PqsQuery(Class<T> template, Optional<PqsPredicate> where, List<PqsField> orderBy, boolean limited) {
+        this.template = template;
+        this.where = where;
+        this.orderBy = orderBy;
+        this.limited = limited;
+        String filter = where.map(p -> " where " + p.sql()).orElse("");
+        String order = orderBy.isEmpty() ? "" : orderBy.stream().map(PqsField::sql).collect(Collectors.joining(", ", " order by ", ""));
+        String rest = filter + order + (limited ? " limit ?" : "");
+        this.sql = "select contract_id, payload from active(?)" + rest;
+        this.idSql = "select contract_id from active(?)" + rest;
+        this.createdSql = "select contract_id, payload from creates(?, ?, ?)" + filter + order;
+        // the predicate applies to the payloads the archived contracts were created with, looked up by contract ID
+        this.archivedSql = "select contract_id from (select archived.contract_id, created.payload from archives(?, ?, ?) archived"
+                + " cross join lateral lookup_contract(archived.contract_id) created) archived_contracts" + filter;
+    }
+
+    /**
+     * All active contracts of the template.
+     */
+    public static <T extends Template> PqsQuery<T> from(Class<T> template) {
+        return new PqsQuery<>(template, Optional.empty(), List.of(), false);
+    }
+
+    /**
+     * Restricts the query further; combined with any earlier predicate by {@code and}.
+     */
+    public PqsQuery<T> where(PqsPredicate predicate) {
+        return new PqsQuery<>(template, Optional.of(where.map(p -> p.and(predicate)).orElse(predicate)), orderBy, limited);
+    }
+
+    public PqsQuery<T> orderBy(PqsField... fields) {
+        return new PqsQuery<>(template, where, List.of(fields), limited);
+    }
+
+    /**
+     * Limits the number of rows; the limit is bound as the last parameter.
+     */
+    public PqsQuery<T> limit() {
+        return new PqsQuery<>(template, where, orderBy, true);
+    }
+
+    public Class<T> template() {
+        return template;
+    }
+
+    public String sql() {
+        return sql;
+    }
+
+    /**
+     * The same query selecting only the contract IDs, for callers that take payloads from a cache.
+     */
+    String idSql() {
+        return idSql;
+    }
+
+    String createdSql() {
+        return createdSql;
+    }
+
+    String archivedSql() {
+        return archivedSql;
+    }
+
+    int arity() {
+        return where.map(PqsPredicate::arity).orElse(0) + (limited ? 1 : 0);
+    }
+
+    /**
+     * Returns the JDBC parameters for the given values, led by the template name.
+     */
+    Object[] bind(Object... params) {
+        if (params.length != arity()) {
+            throw new IllegalArgumentException("Query expects " + arity() + " parameters but got " + params.length + ": " + sql);
+        }
+        return Stream.concat(Stream.of(TemplateIds.qualifiedName(template)), Stream.of(params)).toArray();
+    }
+
+    /**
+     * Returns the JDBC parameters of {@link #createdSql()} for the given offset range and values.
+     */
+    Object[] bindCreated(long fromOffset, long toOffset, Object... params) {
+        Object[] bound = bind(params);
+        requireUnlimited();
+        return Stream.concat(Stream.of(bound[0], fromOffset, toOffset), Stream.of(params)).toArray();
+    }
+
+    /**
+     * Returns the JDBC parameters of {@link #archivedSql()} for the given offset range and values.
+     */
+    Object[] bindArchived(long fromOffset, long toOffset, Object... params) {
+        Object[] bound = bind(params);
+        requireUnlimited();
+        return Stream.concat(Stream.of(bound[0], fromOffset, toOffset), Stream.of(params)).toArray();
+    }
+
+    private void requireUnlimited() {
+        if (limited) {
+            throw new IllegalStateException("Offset range queries cannot be limited: " + sql);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
@@ -0,0 +1,147 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.pqs;
+
+import com.digitalasset.quickstart.config.PqsConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the ledger offset up to which PQS has ingested transactions and lets readers wait for it.
+ * A single poller queries the watermark, and only while someone is waiting, so the cost does not grow
+ * with the number of waiting requests.
+ */
+@Component
+public class PqsWatermark {
+
+    private static final Logger logger = LoggerFactory.getLogger(PqsWatermark.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Executor executor;
+    private final String query;
+    private final long pollIntervalMillis;
+    private final ScheduledExecutorService scheduler;
+
+    // guarded by this
+    private final NavigableMap<Long, List<CompletableFuture<Void>>> waiters = new TreeMap<>();
+    private boolean polling = false;
+
+    private volatile long watermark = -1;
+
+    public PqsWatermark(
+            JdbcTemplate jdbcTemplate,
+            @Qualifier(PqsExecutorConfiguration.PQS_EXECUTOR) Executor executor,
+            PqsConfig pqsConfig,
+            MeterRegistry meterRegistry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.executor = executor;
+        this.query = pqsConfig.getWatermark().getQuery();
+        this.pollIntervalMillis = pqsConfig.getWatermark().getPollInterval().toMillis();
+        var threadFactory = new CustomizableThreadFactory("pqs-watermark-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        Gauge.builder("pqs.watermark.offset", this, w -> w.watermark)
+                .description("Last ledger offset PQS was observed to have ingested")
+                .register(meterRegistry);
+        Gauge.builder("pqs.watermark.waiters", this, PqsWatermark::waiterCount)
+                .description("Reads waiting for PQS to reach a ledger offset")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Completes once PQS has ingested the transaction at the given offset. Callers should bound the wait;
+     * futures completed or cancelled by the caller are dropped on the next poll.
+     */
+    public CompletableFuture<Void> awaitOffset(long offset) {
+        if (offset <= watermark) {
+            return CompletableFuture.completedFuture(null);
+        }
+        var future = new CompletableFuture<Void>();
+        synchronized (this) {
+            waiters.computeIfAbsent(offset, k -> new ArrayList<>()).add(future);
+            if (!polling) {
+                polling = true;
+                scheduler.execute(this::poll);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Reads the current watermark. Data read from PQS after this completes reflects at least this offset.
+     */
+    public CompletableFuture<Long> current() {
+        return CompletableFuture.supplyAsync(() -> {
+            Long current = jdbcTemplate.queryForObject(query, Long.class);
+            if (current == null) {
+                throw new IllegalStateException("PQS has not ingested any transaction yet");
+            }
+            observe(current);
+            return current;
+        }, executor);
+    }
+
+    private synchronized void observe(long current) {
+        if (current > watermark) {
+            watermark = current;
+        }
+    }
+
+    private void poll() {
+        try {
+            Long current = jdbcTemplate.queryForObject(query, Long.class);
+            if (current != null) {
+                observe(current);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read PQS watermark", e);
+        } finally {
+            // waiters must be released and polling rescheduled whatever went wrong, or awaitOffset never polls again
+            releaseAndReschedule();
+        }
+    }
+
+    private void releaseAndReschedule() {
+        var released = new ArrayList<CompletableFuture<Void>>();
+        synchronized (this) {
+            var reached = waiters.headMap(watermark, true);
+            reached.values().forEach(released::addAll);
+            reached.clear();
+            waiters.values().forEach(futures -> futures.removeIf(CompletableFuture::isDone));
+            waiters.values().removeIf(List::isEmpty);
+            polling = !waiters.isEmpty();
+            if (polling) {
+                scheduler.schedule(this::poll, pollIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        released.forEach(f -> f.complete(null));
+    }
+
+    private synchronized int waiterCount() {
+        return waiters.values().stream().mapToInt(List::size).sum();
+    }
+}
@@ -0,0 +1,19 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.repository;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Changes to a listing between two ledger offsets: items to add or replace, IDs of archived contracts to
+ * remove, and the offset to ask for the next changes from. Clients apply the changed items before the
+ * archived IDs.
+ */
+public record Changes<T>(List<T> changed, List<String> archived, long offset) {
+
+    public <R> Changes<R> map(Function<? super T, ? extends R> mapper) {
+        return new Changes<>(changed.stream().<R>map(mapper).toList(), archived, offset);
+    }
+}
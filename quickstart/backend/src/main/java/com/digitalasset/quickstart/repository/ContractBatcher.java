@@ -0,0 +1,93 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.repository;
+
+import com.digitalasset.quickstart.pqs.Contract;
+import com.digitalasset.quickstart.pqs.Pqs;
+import com.digitalasset.transcode.java.Template;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * DataLoader-style batcher for lookups of single contracts by ID. Lookups arriving within a short
+ * window are collected and resolved with one {@link Pqs#contractsByIds} query; a batch is flushed
+ * early once it reaches its maximum size.
+ */
+class ContractBatcher<T extends Template> {
+
+    private final Class<T> clazz;
+    private final Pqs pqs;
+    private final ScheduledExecutorService scheduler;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private Map<String, List<CompletableFuture<Optional<Contract<T>>>>> pending = new HashMap<>();
+
+    ContractBatcher(Class<T> clazz, Pqs pqs, ScheduledExecutorService scheduler, Duration window, int maxBatchSize) {
+        this.clazz = clazz;
+        this.pqs = pqs;
+        this.scheduler = scheduler;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    CompletableFuture<Optional<Contract<T>>> load(String contractId) {
+        var future = new CompletableFuture<Optional<Contract<T>>>();
+        Map<String, List<CompletableFuture<Optional<Contract<T>>>>> full = null;
+        synchronized (this) {
+            boolean first = pending.isEmpty();
+            pending.computeIfAbsent(contractId, id -> new ArrayList<>()).add(future);
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (first) {
+                scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    private void flush() {
+        Map<String, List<CompletableFuture<Optional<Contract<T>>>>> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private Map<String, List<CompletableFuture<Optional<Contract<T>>>>> takePending() {
+        var batch = pending;
+        pending = new HashMap<>();
+        return batch;
+    }
+
+    private void dispatch(Map<String, List<CompletableFuture<Optional<Contract<T>>>>> batch) {
+        pqs.contractsByIds(clazz, batch.keySet()).whenComplete((contracts, ex) -> {
+            if (ex != null) {
+                batch.values().forEach(futures -> futures.forEach(f -> f.completeExceptionally(ex)));
+                return;
+            }
+            Map<String, Contract<T>> byId = contracts.stream()
+                    .collect(Collectors.toMap(c -> c.contractId.getContractId, Function.identity()));
+            batch.forEach((contractId, futures) -> {
+                var result = Optional.ofNullable(byId.get(contractId));
+                futures.forEach(f -> f.complete(result));
+            });
+        });
+    }
+}
@@ -3,18 +3,39 @@
 
 package com.digitalasset.quickstart.repository;
 
+import static com.digitalasset.quickstart.pqs.PqsField.CONTRACT_ID;
+
+import com.digitalasset.quickstart.config.PqsConfig;
+import com.digitalasset.quickstart.ledger.LedgerReadModel;
 import com.digitalasset.quickstart.pqs.Contract;
 import com.digitalasset.quickstart.pqs.Pqs;
+import com.digitalasset.quickstart.pqs.PqsField;
+import com.digitalasset.quickstart.pqs.PqsIndex;
+import com.digitalasset.quickstart.pqs.PqsIndexRequirements;
+import com.digitalasset.quickstart.pqs.PqsPredicate;
+import com.digitalasset.quickstart.pqs.PqsQuery;
+import com.digitalasset.quickstart.pqs.PqsWatermark;
+import com.digitalasset.quickstart.utility.TemplateIds;
 import com.digitalasset.transcode.java.ContractId;
 import com.digitalasset.transcode.java.Template;
-import com.digitalasset.transcode.java.Utils;
 
-import java.util.HashMap;
+import java.sql.Array;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Repository;
 import quickstart_licensing.licensing.appinstall.AppInstall;
 import quickstart_licensing.licensing.appinstall.AppInstallRequest;
@@ -27,13 +48,108 @@ import splice_api_token_allocation_v1.splice.api.token.allocationv1.Allocation;
  * Repository for accessing active Daml contracts via PQS.
  */
 @Repository
-public class DamlRepository {
+public class DamlRepository implements PqsIndexRequirements {
+
+    /**
+     * Keys of a page token of {@link #findActiveLicenses}: user, license number and contract ID.
+     */
+    public static final List<PageToken.KeyType> LICENSES_PAGE_KEYS =
+            List.of(PageToken.KeyType.TEXT, PageToken.KeyType.NUMBER, PageToken.KeyType.TEXT);
+    /**
+     * Keys of a page token of listings ordered by contract ID.
+     */
+    public static final List<PageToken.KeyType> CONTRACTS_PAGE_KEYS = List.of(PageToken.KeyType.TEXT);
+
+    private static final PqsPredicate USER_OR_PROVIDER = PqsField.text("user").eq().or(PqsField.text("provider").eq());
+    private static final PqsQuery<License> LICENSES_VISIBLE = PqsQuery.from(License.class).where(USER_OR_PROVIDER);
+    private static final PqsQuery<AppInstall> APP_INSTALLS_VISIBLE =
+            PqsQuery.from(AppInstall.class).where(USER_OR_PROVIDER).orderBy(CONTRACT_ID);
+    private static final PqsQuery<AppInstall> APP_INSTALLS_PAGE =
+            PqsQuery.from(AppInstall.class).where(USER_OR_PROVIDER).orderBy(CONTRACT_ID).limit();
+    private static final PqsQuery<AppInstall> APP_INSTALLS_PAGE_AFTER = APP_INSTALLS_PAGE.where(CONTRACT_ID.gt());
+    private static final PqsQuery<AppInstallRequest> APP_INSTALL_REQUESTS_PAGE =
+            PqsQuery.from(AppInstallRequest.class).where(USER_OR_PROVIDER).orderBy(CONTRACT_ID).limit();
+    private static final PqsQuery<AppInstallRequest> APP_INSTALL_REQUESTS_PAGE_AFTER = APP_INSTALL_REQUESTS_PAGE.where(CONTRACT_ID.gt());
+
+    /**
+     * Indexes backing the JSON predicates, joins and orderings of the queries below.
+     */
+    private static final List<PqsIndex> INDEXES = List.of(
+            PqsIndex.btree("qs_license_user_num_idx", License.class,
+                    "((payload->>'user') COLLATE \"C\", ((payload->>'licenseNum')::bigint))"),
+            // the user filter compares with the default collation, which the ordering index above cannot serve
+            PqsIndex.hash("qs_license_user_idx", License.class, "((payload->>'user'))"),
+            PqsIndex.hash("qs_license_provider_idx", License.class, "((payload->>'provider'))"),
+            PqsIndex.btree("qs_renewal_num_user_idx", LicenseRenewalRequest.class,
+                    "((payload->>'licenseNum'), (payload->>'user'))"),
+            PqsIndex.btree("qs_allocation_ref_sender_idx", Allocation.class,
+                    "((payload->'allocation'->'settlement'->'settlementRef'->>'id'), (payload->'allocation'->'transferLeg'->>'sender'))"),
+            PqsIndex.hash("qs_app_install_user_idx", AppInstall.class, "((payload->>'user'))"),
+            PqsIndex.hash("qs_app_install_provider_idx", AppInstall.class, "((payload->>'provider'))"),
+            PqsIndex.hash("qs_app_install_request_user_idx", AppInstallRequest.class, "((payload->>'user'))"),
+            PqsIndex.hash("qs_app_install_request_provider_idx", AppInstallRequest.class, "((payload->>'provider'))")
+    );
 
     private final Pqs pqs;
+    private final LedgerReadModel readModel;
+    private final PqsWatermark watermark;
+    private final Duration watermarkTimeout;
+    private final ScheduledExecutorService batchScheduler;
+    private final ContractBatcher<License> licenses;
+    private final ContractBatcher<LicenseRenewalRequest> licenseRenewalRequests;
+    private final ContractBatcher<AllocationRequest> allocationRequests;
+    private final ContractBatcher<AppInstall> appInstalls;
+    private final ContractBatcher<AppInstallRequest> appInstallRequests;
 
     @Autowired
-    public DamlRepository(Pqs pqs) {
+    public DamlRepository(Pqs pqs, PqsConfig pqsConfig, PqsWatermark watermark, ObjectProvider<LedgerReadModel> readModel) {
         this.pqs = pqs;
+        this.readModel = readModel.getIfAvailable();
+        this.watermark = watermark;
+        this.watermarkTimeout = pqsConfig.getWatermark().getTimeout();
+        var threadFactory = new CustomizableThreadFactory("pqs-batch-");
+        threadFactory.setDaemon(true);
+        this.batchScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        this.licenses = batcher(License.class, pqsConfig.getBatch());
+        this.licenseRenewalRequests = batcher(LicenseRenewalRequest.class, pqsConfig.getBatch());
+        this.allocationRequests = batcher(AllocationRequest.class, pqsConfig.getBatch());
+        this.appInstalls = batcher(AppInstall.class, pqsConfig.getBatch());
+        this.appInstallRequests = batcher(AppInstallRequest.class, pqsConfig.getBatch());
+    }
+
+    /**
+     * The in-memory read model if it is enabled and has caught up with the ledger; PQS is used otherwise.
+     */
+    private Optional<LedgerReadModel> readModel() {
+        return Optional.ofNullable(readModel).filter(LedgerReadModel::isReady);
+    }
+
+    /**
+     * Completes once the source of subsequent reads reflects the transaction at the given ledger offset,
+     * e.g. one returned for a command of the same client. Gives up waiting after {@code pqs.watermark.timeout},
+     * in which case reads may still miss the transaction.
+     */
+    public CompletableFuture<Void> awaitOffset(Optional<Long> offset) {
+        if (offset.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        var model = readModel();
+        var reached = model.isPresent() ? model.get().awaitOffset(offset.get()) : watermark.awaitOffset(offset.get());
+        return reached.completeOnTimeout(null, watermarkTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private <T extends Template> ContractBatcher<T> batcher(Class<T> clazz, PqsConfig.Batch config) {
+        return new ContractBatcher<>(clazz, pqs, batchScheduler, config.getWindow(), config.getMaxSize());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        batchScheduler.shutdown();
+    }
+
+    @Override
+    public List<PqsIndex> requiredIndexes() {
+        return INDEXES;
     }
 
     public record LicenseRenewalRequestWithAllocationCid(
@@ -46,12 +162,8 @@ public class DamlRepository {
             List<LicenseRenewalRequestWithAllocationCid> renewals) {
     }
 
-    private <T extends Template> T extractPayload(Class<T> clazz, String payload) {
-        return clazz.cast(pqs.getJson2Dto().template(Utils.getTemplateIdByClass(clazz)).convert(payload));
-    }
-
     private <T extends Template> Contract<T> extract(Class<T> clazz, ContractId<T> cid, String payload) {
-        return new Contract<>(cid, extractPayload(clazz, payload));
+        return new Contract<>(cid, pqs.decode(clazz, cid.getContractId, payload));
     }
 
     private <T extends Template> Optional<ContractId<T>> optionalCid(Class<T> clazz, String cid) {
@@ -63,97 +175,326 @@ public class DamlRepository {
     }
 
     private <T extends Template> String qualifiedName(Class<T> clazz) {
-        return Utils.getTemplateIdByClass(clazz).qualifiedName();
-    }
-
-    /**
-     * Finds active License contracts where the user or provider matches the given party.
-     */
-    public CompletableFuture<List<LicenseWithRenewalRequests>> findActiveLicenses(String party) {
-        var map = new HashMap<String, LicenseWithRenewalRequests>();
-        String sql = """
-                SELECT license.contract_id    AS license_contract_id,
-                       license.payload        AS license_payload,
-                       renewal.contract_id    AS renewal_contract_id,
-                       renewal.payload        AS renewal_payload,
-                       allocation.contract_id AS allocation_contract_id
-                FROM active(?) license
-                LEFT JOIN active(?) renewal ON
-                    license.payload->>'licenseNum' = renewal.payload->>'licenseNum'
-                    AND license.payload->>'user' = renewal.payload->>'user'
-                LEFT JOIN active(?) allocation ON
-                    renewal.payload->>'requestId' = allocation.payload->'allocation'->'settlement'->'settlementRef'->>'id'
-                    AND renewal.payload->>'user' = allocation.payload->'allocation'->'transferLeg'->>'sender'
-                WHERE license.payload->>'user' = ? OR license.payload->>'provider' = ?
-                ORDER BY license.contract_id
+        return TemplateIds.qualifiedName(clazz);
+    }
+
+    /**
+     * Finds one page of active License contracts where the user or provider matches the given party,
+     * ordered by user, license number and contract ID.
+     * Renewal requests and their allocation IDs are aggregated per license in Postgres, so every license
+     * payload is transferred and decoded exactly once regardless of how many renewals it has.
+     */
+    public CompletableFuture<Page<LicenseWithRenewalRequests>> findActiveLicenses(String party, int limit, Optional<PageToken> after) {
+        var model = readModel();
+        if (model.isPresent()) {
+            return CompletableFuture.completedFuture(findActiveLicenses(model.get(), party, limit, after));
+        }
+        String page = """
+                page AS (
+                    SELECT contract_id, payload
+                    FROM active(?)
+                    WHERE (payload->>'user' = ? OR payload->>'provider' = ?)
+                    %s
+                    ORDER BY payload->>'user' COLLATE "C", (payload->>'licenseNum')::bigint, contract_id
+                    LIMIT ?
+                )
+                """.formatted(after.isPresent()
+                ? "AND (payload->>'user' COLLATE \"C\", (payload->>'licenseNum')::bigint, contract_id) > (?, ?, ?)"
+                : "");
+        var params = new ArrayList<Object>(List.of(qualifiedName(License.class), party, party));
+        after.ifPresent(token -> {
+            params.add(token.key(0));
+            params.add(token.longKey(1));
+            params.add(token.key(2));
+        });
+        // one extra row tells whether there is a next page
+        params.add(limit + 1);
+        return queryLicenses(page, params).thenApply(licenses -> toPage(licenses, limit, l -> PageToken.of(
+                l.license().payload.getUser.getParty,
+                l.license().payload.getLicenseNum.toString(),
+                l.license().contractId.getContractId
+        )));
+    }
+
+    /**
+     * Finds the licenses visible to the party that changed after the given ledger offset: active licenses
+     * created since then or whose renewal requests or allocations were created or archived since then,
+     * and the IDs of archived licenses. Changes may be reported more than once across calls. With a minimum
+     * offset the changes include the transaction at that offset, as for the listings.
+     * <p>
+     * Every part of the query starts from the contracts created or archived in the offset range; archived
+     * contracts are looked up by ID, and allocations are matched against active renewal requests only. The
+     * cost therefore grows with the changes in the range rather than with the ledger history.
+     */
+    public CompletableFuture<Changes<LicenseWithRenewalRequests>> findLicenseChanges(
+            String party, long sinceOffset, Optional<Long> minOffset) {
+        return changesUpTo(sinceOffset, minOffset).thenCompose(upTo -> {
+            String touched = """
+                    touched (license_user, license_num) AS (
+                        SELECT payload->>'user', payload->>'licenseNum' FROM creates(?, ?, ?)
+                        UNION
+                        SELECT payload->>'user', payload->>'licenseNum' FROM creates(?, ?, ?)
+                        UNION
+                        SELECT created.payload->>'user', created.payload->>'licenseNum'
+                        FROM archives(?, ?, ?) archived
+                        CROSS JOIN LATERAL lookup_contract(archived.contract_id) created
+                        UNION
+                        SELECT renewal.payload->>'user', renewal.payload->>'licenseNum'
+                        FROM (
+                            SELECT payload FROM creates(?, ?, ?)
+                            UNION ALL
+                            SELECT created.payload
+                            FROM archives(?, ?, ?) archived
+                            CROSS JOIN LATERAL lookup_contract(archived.contract_id) created
+                        ) allocation
+                        JOIN active(?) renewal ON
+                            renewal.payload->>'requestId' = allocation.payload->'allocation'->'settlement'->'settlementRef'->>'id'
+                            AND renewal.payload->>'user' = allocation.payload->'allocation'->'transferLeg'->>'sender'
+                    ),
+                    page AS (
+                        SELECT contract_id, payload
+                        FROM active(?)
+                        WHERE (payload->>'user' = ? OR payload->>'provider' = ?)
+                            AND (payload->>'user', payload->>'licenseNum') IN (SELECT license_user, license_num FROM touched)
+                    )
+                    """;
+            String license = qualifiedName(License.class);
+            String renewal = qualifiedName(LicenseRenewalRequest.class);
+            String allocation = qualifiedName(Allocation.class);
+            var params = new ArrayList<Object>(List.of(
+                    license, sinceOffset, upTo,
+                    renewal, sinceOffset, upTo,
+                    renewal, sinceOffset, upTo,
+                    allocation, sinceOffset, upTo,
+                    allocation, sinceOffset, upTo,
+                    renewal,
+                    license, party, party
+            ));
+            var changed = queryLicenses(touched, params);
+            var archived = pqs.archivedBetween(LICENSES_VISIBLE, sinceOffset, upTo, party, party);
+            return changed.thenCombine(archived, (c, a) -> new Changes<>(c, a, upTo));
+        });
+    }
+
+    /**
+     * Runs the given CTEs, which must define {@code page} with the licenses to return, and attaches each
+     * license's renewal requests and their allocation IDs, aggregated in Postgres so that every license
+     * payload is transferred and decoded exactly once.
+     */
+    private CompletableFuture<List<LicenseWithRenewalRequests>> queryLicenses(String ctes, List<Object> cteParams) {
+        var licenses = new ArrayList<LicenseWithRenewalRequests>();
+        String sql = "WITH " + ctes + """
+                SELECT license.contract_id               AS license_contract_id,
+                       license.payload                   AS license_payload,
+                       renewals.contract_ids             AS renewal_contract_ids,
+                       renewals.payloads                 AS renewal_payloads,
+                       renewals.allocation_contract_ids  AS allocation_contract_ids
+                FROM page license
+                LEFT JOIN LATERAL (
+                    SELECT array_agg(renewal.contract_id ORDER BY renewal.contract_id)       AS contract_ids,
+                           array_agg(renewal.payload::text ORDER BY renewal.contract_id)     AS payloads,
+                           array_agg(allocation.contract_id ORDER BY renewal.contract_id)    AS allocation_contract_ids
+                    FROM active(?) renewal
+                    LEFT JOIN active(?) allocation ON
+                        renewal.payload->>'requestId' = allocation.payload->'allocation'->'settlement'->'settlementRef'->>'id'
+                        AND renewal.payload->>'user' = allocation.payload->'allocation'->'transferLeg'->>'sender'
+                    WHERE license.payload->>'licenseNum' = renewal.payload->>'licenseNum'
+                        AND license.payload->>'user' = renewal.payload->>'user'
+                ) renewals ON true
+                ORDER BY license.payload->>'user' COLLATE "C", (license.payload->>'licenseNum')::bigint, license.contract_id
                 """;
+        var params = new ArrayList<>(cteParams);
+        params.add(qualifiedName(LicenseRenewalRequest.class));
+        params.add(qualifiedName(Allocation.class));
         return pqs.query(sql, rs -> {
                     var licenseId = rs.getString("license_contract_id");
-                    if (!map.containsKey(licenseId)) {
-                        map.put(licenseId,
-                                new LicenseWithRenewalRequests(
-                                        extract(License.class, cid(License.class, licenseId), rs.getString("license_payload")),
-                                        new java.util.ArrayList<>()
-                                )
-                        );
-                    }
-                    var renewalCid = optionalCid(LicenseRenewalRequest.class, rs.getString("renewal_contract_id"));
-                    if (renewalCid.isPresent()) {
-                        map.get(licenseId).renewals.add(new LicenseRenewalRequestWithAllocationCid(
-                                        extract(LicenseRenewalRequest.class, renewalCid.get(), rs.getString("renewal_payload")),
-                                        optionalCid(Allocation.class, rs.getString("allocation_contract_id"))
-                                )
-                        );
+                    var renewals = new ArrayList<LicenseRenewalRequestWithAllocationCid>();
+                    String[] renewalIds = stringArray(rs.getArray("renewal_contract_ids"));
+                    String[] renewalPayloads = stringArray(rs.getArray("renewal_payloads"));
+                    String[] allocationIds = stringArray(rs.getArray("allocation_contract_ids"));
+                    for (int i = 0; i < renewalIds.length; i++) {
+                        renewals.add(new LicenseRenewalRequestWithAllocationCid(
+                                extract(LicenseRenewalRequest.class, cid(LicenseRenewalRequest.class, renewalIds[i]), renewalPayloads[i]),
+                                optionalCid(Allocation.class, allocationIds[i])
+                        ));
                     }
+                    licenses.add(new LicenseWithRenewalRequests(
+                            extract(License.class, cid(License.class, licenseId), rs.getString("license_payload")),
+                            renewals
+                    ));
                 },
-                qualifiedName(License.class),
-                qualifiedName(LicenseRenewalRequest.class),
-                qualifiedName(Allocation.class),
-                party,
-                party
-        ).thenApply(v -> new java.util.ArrayList<>(map.values()));
+                params.toArray()
+        ).thenApply(v -> licenses);
+    }
+
+    private Page<LicenseWithRenewalRequests> findActiveLicenses(LedgerReadModel model, String party, int limit, Optional<PageToken> after) {
+        Comparator<Contract<License>> order = (a, b) ->
+                compareLicense(a, b.payload.getUser.getParty, b.payload.getLicenseNum, b.contractId.getContractId);
+        var rows = model.licenses(party).stream()
+                .filter(license -> after.isEmpty() || compareLicense(license,
+                        after.get().key(0), after.get().longKey(1), after.get().key(2)) > 0)
+                .sorted(order)
+                .limit(limit + 1L)
+                .map(license -> new LicenseWithRenewalRequests(license, renewalsFromReadModel(model, license)))
+                .toList();
+        return toPage(rows, limit, l -> PageToken.of(
+                l.license().payload.getUser.getParty,
+                l.license().payload.getLicenseNum.toString(),
+                l.license().contractId.getContractId
+        ));
+    }
+
+    private List<LicenseRenewalRequestWithAllocationCid> renewalsFromReadModel(LedgerReadModel model, Contract<License> license) {
+        var result = new ArrayList<LicenseRenewalRequestWithAllocationCid>();
+        for (var renewal : model.licenseRenewalRequests(license.payload.getUser.getParty, license.payload.getLicenseNum)) {
+            // like the left join in the PQS query: one entry per matching allocation, or one without
+            var allocationIds = model.allocationIds(renewal.payload.getRequestId, renewal.payload.getUser.getParty);
+            if (allocationIds.isEmpty()) {
+                result.add(new LicenseRenewalRequestWithAllocationCid(renewal, Optional.empty()));
+            }
+            allocationIds.forEach(id -> result.add(new LicenseRenewalRequestWithAllocationCid(renewal, Optional.of(cid(Allocation.class, id)))));
+        }
+        return result;
+    }
+
+    /**
+     * Compares a license with the key (user, license number, contract ID) in the order of {@link #findActiveLicenses}.
+     */
+    private static int compareLicense(Contract<License> license, String user, long licenseNum, String contractId) {
+        int result = license.payload.getUser.getParty.compareTo(user);
+        if (result == 0) {
+            result = Long.compare(license.payload.getLicenseNum, licenseNum);
+        }
+        if (result == 0) {
+            result = license.contractId.getContractId.compareTo(contractId);
+        }
+        return result;
+    }
+
+    private static String[] stringArray(Array array) throws SQLException {
+        if (array == null) {
+            return new String[0];
+        }
+        try {
+            return (String[]) array.getArray();
+        } finally {
+            array.free();
+        }
     }
 
     /**
      * Fetches a License contract by contract ID.
      */
     public CompletableFuture<Optional<Contract<License>>> findLicenseById(String contractId) {
-        return pqs.contractByContractId(License.class, contractId);
+        return licenses.load(contractId);
     }
 
     public CompletableFuture<Optional<Contract<LicenseRenewalRequest>>> findActiveLicenseRenewalRequestById(String contractId) {
-       return pqs.contractByContractId(LicenseRenewalRequest.class, contractId);
+       return licenseRenewalRequests.load(contractId);
     }
 
     public CompletableFuture<Optional<Contract<AllocationRequest>>> findActiveAllocationRequestById(String contractId) {
-        return pqs.contractByContractId(AllocationRequest.class, contractId);
+        return allocationRequests.load(contractId);
     }
 
     /**
      * Fetches an AppInstall contract by contract ID.
      */
     public CompletableFuture<Optional<Contract<AppInstall>>> findAppInstallById(String contractId) {
-        return pqs.contractByContractId(AppInstall.class, contractId);
+        return appInstalls.load(contractId);
     }
 
     /**
      * Fetches an AppInstallRequest contract by contract ID.
      */
     public CompletableFuture<Optional<Contract<AppInstallRequest>>> findAppInstallRequestById(String contractId) {
-        return pqs.contractByContractId(AppInstallRequest.class, contractId);
+        return appInstallRequests.load(contractId);
+    }
+
+    /**
+     * Finds one page of active AppInstall contracts where the user or provider matches the given party,
+     * ordered by contract ID.
+     */
+    public CompletableFuture<Page<Contract<AppInstall>>> findActiveAppInstalls(String party, int limit, Optional<PageToken> after) {
+        var model = readModel();
+        if (model.isPresent()) {
+            return CompletableFuture.completedFuture(contractIdPage(model.get().appInstalls(party), limit, after));
+        }
+        return partyPage(APP_INSTALLS_PAGE, APP_INSTALLS_PAGE_AFTER, party, limit, after);
+    }
+
+    /**
+     * Finds the AppInstall contracts visible to the party created or archived after the given ledger offset.
+     * A contract created and archived within the range is reported in both lists.
+     */
+    public CompletableFuture<Changes<Contract<AppInstall>>> findAppInstallChanges(
+            String party, long sinceOffset, Optional<Long> minOffset) {
+        return changesUpTo(sinceOffset, minOffset).thenCompose(upTo -> {
+            var created = pqs.createdBetween(APP_INSTALLS_VISIBLE, sinceOffset, upTo, party, party);
+            var archived = pqs.archivedBetween(APP_INSTALLS_VISIBLE, sinceOffset, upTo, party, party);
+            return created.thenCombine(archived, (c, a) -> new Changes<>(c, a, upTo));
+        });
+    }
+
+    /**
+     * The ledger offset that subsequent reads reflect at least: the read model offset when it serves
+     * reads, the PQS watermark otherwise. Clients pass it back to the change queries.
+     */
+    public CompletableFuture<Long> currentOffset() {
+        var model = readModel();
+        return model.isPresent() ? CompletableFuture.completedFuture(model.get().offset()) : watermark.current();
     }
 
     /**
-     * Finds all active AppInstall contracts.
+     * The offset up to which changes are reported: the PQS watermark, once it reached the optional minimum
+     * offset (boundedly, as in {@link #awaitOffset}).
      */
-    public CompletableFuture<List<Contract<AppInstall>>> findActiveAppInstalls() {
-        return pqs.active(AppInstall.class);
+    private CompletableFuture<Long> changesUpTo(long sinceOffset, Optional<Long> minOffset) {
+        var reached = minOffset.map(watermark::awaitOffset).orElseGet(() -> CompletableFuture.completedFuture(null))
+                .completeOnTimeout(null, watermarkTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        // an offset obtained from the read model may be ahead of PQS; report no changes until PQS catches up
+        return reached.thenCompose(v -> watermark.current()).thenApply(current -> Math.max(current, sinceOffset));
+    }
+
+    /**
+     * Finds one page of active AppInstallRequest contracts where the user or provider matches the given party,
+     * ordered by contract ID.
+     */
+    public CompletableFuture<Page<Contract<AppInstallRequest>>> findActiveAppInstallRequests(String party, int limit, Optional<PageToken> after) {
+        var model = readModel();
+        if (model.isPresent()) {
+            return CompletableFuture.completedFuture(contractIdPage(model.get().appInstallRequests(party), limit, after));
+        }
+        return partyPage(APP_INSTALL_REQUESTS_PAGE, APP_INSTALL_REQUESTS_PAGE_AFTER, party, limit, after);
+    }
+
+    private <T extends Template> CompletableFuture<Page<Contract<T>>> partyPage(
+            PqsQuery<T> first, PqsQuery<T> next, String party, int limit, Optional<PageToken> after) {
+        // one extra row tells whether there is a next page
+        var contracts = after.isPresent()
+                ? pqs.active(next, party, party, after.get().key(0), limit + 1)
+                : pqs.active(first, party, party, limit + 1);
+        return contracts.thenApply(rows -> toPage(rows, limit, c -> PageToken.of(c.contractId.getContractId)));
+    }
+
+    private static <T extends Template> Page<Contract<T>> contractIdPage(List<Contract<T>> contracts, int limit, Optional<PageToken> after) {
+        var rows = contracts.stream()
+                .filter(c -> after.isEmpty() || c.contractId.getContractId.compareTo(after.get().key(0)) > 0)
+                .sorted(Comparator.comparing((Contract<T> c) -> c.contractId.getContractId))
+                .limit(limit + 1L)
+                .toList();
+        return toPage(rows, limit, c -> PageToken.of(c.contractId.getContractId));
     }
 
     /**
-     * Finds all active AppInstallRequest contracts.
+     * Cuts a result fetched with {@code limit + 1} rows down to one page and derives the next page token
+     * from the last item kept.
      */
-    public CompletableFuture<List<Contract<AppInstallRequest>>> findActiveAppInstallRequests() {
-        return pqs.active(AppInstallRequest.class);
+    private static <T> Page<T> toPage(List<T> rows, int limit, Function<T, PageToken> keyOf) {
+        if (rows.size() <= limit) {
+            return new Page<>(rows, Optional.empty());
+        }
+        List<T> items = rows.subList(0, limit);
+        return new Page<>(List.copyOf(items), Optional.of(keyOf.apply(items.get(limit - 1))));
     }
 }
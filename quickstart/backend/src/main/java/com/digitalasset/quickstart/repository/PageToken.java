@@ -0,0 +1,68 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset position of the last item of a page. Clients only see the opaque encoded form.
+ */
+public record PageToken(List<String> keys) {
+
+    private static final String SEPARATOR = "\u001f";
+
+    /**
+     * Type of a key, checked when a token is decoded.
+     */
+    public enum KeyType {
+        TEXT,
+        NUMBER
+    }
+
+    public String key(int index) {
+        return keys.get(index);
+    }
+
+    /**
+     * The key at the index, which must be declared {@link KeyType#NUMBER} when decoding.
+     */
+    public long longKey(int index) {
+        return Long.parseLong(keys.get(index));
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(SEPARATOR, keys).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed or its keys do not match the expected types
+     */
+    public static PageToken decode(String token, List<KeyType> keyTypes) {
+        String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        List<String> keys = Arrays.asList(decoded.split(SEPARATOR, -1));
+        if (keys.size() != keyTypes.size()) {
+            throw new IllegalArgumentException("Malformed page token");
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (keyTypes.get(i) == KeyType.NUMBER) {
+                try {
+                    Long.parseLong(keys.get(i));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Malformed page token", e);
+                }
+            }
+        }
+        return new PageToken(keys);
+    }
+
+    public static PageToken of(String... keys) {
+        return new PageToken(List.of(keys));
+    }
+}
@@ -0,0 +1,124 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tenant registrations made at runtime, shared by all backend replicas through a table in the PQS database.
+ * Replicas keep serving tenants from memory and reload them from here when told about a change on the
+ * invalidation bus, or after they may have missed such changes.
+ * <p>
+ * Tenants configured under {@code application.tenants} are not stored. Deleting one records a tombstone,
+ * so that replicas do not restore it from their configuration; registering it again replaces the tombstone.
+ */
+@Repository
+public class TenantRegistrationStore {
+
+    private static final String TABLE = "quickstart_tenant_registrations";
+
+    /**
+     * One stored tenant. A deleted entry is a tombstone of a configured tenant and has no other fields set.
+     */
+    public record StoredTenant(
+            String tenantId,
+            boolean deleted,
+            String partyId,
+            String walletUrl,
+            String clientId,
+            String issuerUrl,
+            List<String> users
+    ) {
+        public static StoredTenant registered(String tenantId, String partyId, String walletUrl,
+                                              String clientId, String issuerUrl, List<String> users) {
+            return new StoredTenant(tenantId, false, partyId, walletUrl, clientId, issuerUrl, users);
+        }
+    }
+
+    private static final RowMapper<StoredTenant> ROW_MAPPER = (rs, rowNum) -> {
+        Array users = rs.getArray("users");
+        return new StoredTenant(
+                rs.getString("tenant_id"),
+                rs.getBoolean("deleted"),
+                rs.getString("party_id"),
+                rs.getString("wallet_url"),
+                rs.getString("client_id"),
+                rs.getString("issuer_url"),
+                users == null ? null : Arrays.asList((String[]) users.getArray()));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean tableCreated = false;
+
+    public TenantRegistrationStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Stores a new registration.
+     *
+     * @return false if the tenant is already registered
+     */
+    public boolean insert(StoredTenant tenant) {
+        ensureTable();
+        String[] users = tenant.users() == null ? null : tenant.users().toArray(String[]::new);
+        return jdbcTemplate.update("insert into " + TABLE
+                        + " (tenant_id, deleted, party_id, wallet_url, client_id, issuer_url, users)"
+                        + " values (?, false, ?, ?, ?, ?, ?)"
+                        + " on conflict (tenant_id) do update set deleted = false, party_id = excluded.party_id,"
+                        + " wallet_url = excluded.wallet_url, client_id = excluded.client_id,"
+                        + " issuer_url = excluded.issuer_url, users = excluded.users"
+                        + " where " + TABLE + ".deleted",
+                tenant.tenantId(), tenant.partyId(), tenant.walletUrl(), tenant.clientId(), tenant.issuerUrl(), users) == 1;
+    }
+
+    /**
+     * Deletes a registration. For a configured tenant a tombstone is recorded instead.
+     *
+     * @return false if the tenant was not registered
+     */
+    public boolean delete(String tenantId, boolean configured) {
+        ensureTable();
+        if (configured) {
+            return jdbcTemplate.update("insert into " + TABLE + " (tenant_id, deleted) values (?, true)"
+                    + " on conflict (tenant_id) do update set deleted = true, party_id = null, wallet_url = null,"
+                    + " client_id = null, issuer_url = null, users = null"
+                    + " where not " + TABLE + ".deleted", tenantId) == 1;
+        }
+        return jdbcTemplate.update("delete from " + TABLE + " where tenant_id = ? and not deleted", tenantId) == 1;
+    }
+
+    public Optional<StoredTenant> find(String tenantId) {
+        ensureTable();
+        return jdbcTemplate.query("select * from " + TABLE + " where tenant_id = ?", ROW_MAPPER, tenantId)
+                .stream().findFirst();
+    }
+
+    public List<StoredTenant> findAll() {
+        ensureTable();
+        return jdbcTemplate.query("select * from " + TABLE, ROW_MAPPER);
+    }
+
+    private void ensureTable() {
+        if (tableCreated) {
+            return;
+        }
+        jdbcTemplate.execute("create table if not exists " + TABLE + " ("
+                + "tenant_id text primary key, "
+                + "deleted boolean not null, "
+                + "party_id text, "
+                + "wallet_url text, "
+                + "client_id text, "
+                + "issuer_url text, "
+                + "users text[])");
+        tableCreated = true;
+    }
+}
@@ -3,11 +3,13 @@
 
 package com.digitalasset.quickstart.security.oauth2;
 
+import com.digitalasset.quickstart.pqs.PqsIndexEndpoint;
 import com.digitalasset.quickstart.security.Auth;
 import com.digitalasset.quickstart.security.PartyAuthority;
 import com.digitalasset.quickstart.security.TenantAuthority;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -71,6 +73,8 @@ public class OAuth2Config {
                         .requestMatchers(HttpMethod.GET, "/user", "/login-links", "/feature-flags", "/oauth2/authorization/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/logout").permitAll()
                         .requestMatchers("/admin/**").hasRole("ADMIN")
+                        // creating PQS indexes runs DDL against the PQS database
+                        .requestMatchers(EndpointRequest.to(PqsIndexEndpoint.class)).hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .exceptionHandling(exceptionHandling -> exceptionHandling
@@ -4,12 +4,14 @@
 package com.digitalasset.quickstart.security.sharedsecret;
 
 import com.digitalasset.quickstart.config.SecurityConfig;
+import com.digitalasset.quickstart.pqs.PqsIndexEndpoint;
 import com.digitalasset.quickstart.repository.TenantPropertiesRepository;
 import com.digitalasset.quickstart.security.Auth;
 import com.digitalasset.quickstart.security.AuthenticatedPartyProvider;
 import com.digitalasset.quickstart.security.AuthenticatedUserProvider;
 import com.digitalasset.quickstart.security.TokenProvider;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -54,6 +56,8 @@ public class SharedSecretConfig {
                         .requestMatchers(HttpMethod.GET, "/login", "/user", "/login-links", "/feature-flags", "/error", "/oauth2/authorization/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/logout").permitAll()
                         .requestMatchers("/admin/**").hasRole("ADMIN")
+                        // creating PQS indexes runs DDL against the PQS database
+                        .requestMatchers(EndpointRequest.to(PqsIndexEndpoint.class)).hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .exceptionHandling(exceptionHandling -> exceptionHandling
@@ -4,7 +4,10 @@
 package com.digitalasset.quickstart.service;
 
 import com.digitalasset.quickstart.api.AdminApi;
+import com.digitalasset.quickstart.pqs.InvalidationBus;
 import com.digitalasset.quickstart.repository.TenantPropertiesRepository;
+import com.digitalasset.quickstart.repository.TenantRegistrationStore;
+import com.digitalasset.quickstart.repository.TenantRegistrationStore.StoredTenant;
 import com.digitalasset.quickstart.security.oauth2.AuthClientRegistrationRepository;
 import com.digitalasset.quickstart.security.oauth2.AuthClientRegistrationRepository.Client;
 import com.digitalasset.quickstart.security.AuthUtils;
@@ -13,6 +16,9 @@ import org.openapitools.model.TenantRegistration;
 import org.openapitools.model.TenantRegistrationRequest;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.provisioning.UserDetailsManager;
@@ -21,9 +27,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.net.URI;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -42,17 +52,24 @@ import jakarta.validation.constraints.NotNull;
 @RequestMapping("${openapi.asset.base-path:}")
 public class AdminApiImpl implements AdminApi {
     private static final Logger logger = LoggerFactory.getLogger(AdminApiImpl.class);
+    private static final String TENANT_TOPIC = "tenant";
     private final AuthClientRegistrationRepository authClientRegistrationRepository;
     private final TenantPropertiesRepository tenantPropertiesRepository;
     private final Optional<UserDetailsManager> userDetailsManager;
     private final AuthUtils auth;
+    private final InvalidationBus invalidationBus;
+    private final TenantRegistrationStore tenantRegistrationStore;
+    // tenants from application.tenants, which every replica registers from its configuration
+    private final Set<String> configuredTenants;
 
     @Autowired
     public AdminApiImpl(
             Optional<AuthClientRegistrationRepository> authClientRegistrationRepository,
             Optional<UserDetailsManager> userDetailsManager,
             TenantPropertiesRepository tenantPropertiesRepository,
-            AuthUtils auth
+            AuthUtils auth,
+            InvalidationBus invalidationBus,
+            TenantRegistrationStore tenantRegistrationStore
     ) {
         this.auth = auth;
         if (auth.isOAuth2Enabled() && authClientRegistrationRepository.isEmpty()) {
@@ -63,6 +80,119 @@ public class AdminApiImpl implements AdminApi {
         this.authClientRegistrationRepository = authClientRegistrationRepository.orElse(null);
         this.userDetailsManager = userDetailsManager;
         this.tenantPropertiesRepository = tenantPropertiesRepository;
+        this.invalidationBus = invalidationBus;
+        this.tenantRegistrationStore = tenantRegistrationStore;
+        this.configuredTenants = Set.copyOf(tenantPropertiesRepository.getAllTenants().keySet());
+        // Tenants are served from memory on every replica. Changes are stored in the shared TenantRegistrationStore
+        // and announced on the bus; each replica then reloads the tenant from the store, or all tenants when it may
+        // have missed announcements.
+        invalidationBus.subscribe(TENANT_TOPIC, new InvalidationBus.Subscriber() {
+            @Override
+            public void invalidate(String tenantId) {
+                syncTenant(tenantId, tenantRegistrationStore.find(tenantId));
+            }
+
+            @Override
+            public void invalidateAll() {
+                syncTenants();
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void loadStoredTenants() {
+        try {
+            syncTenants();
+        } catch (DataAccessException e) {
+            logger.warn("Could not load tenant registrations made on other replicas", e);
+        }
+    }
+
+    /**
+     * Brings every tenant registered here or in the store in line with the store.
+     */
+    private synchronized void syncTenants() {
+        Map<String, StoredTenant> stored = tenantRegistrationStore.findAll().stream()
+                .collect(Collectors.toMap(StoredTenant::tenantId, Function.identity()));
+        Set<String> tenantIds = new HashSet<>(stored.keySet());
+        tenantIds.addAll(tenantPropertiesRepository.getAllTenants().keySet());
+        tenantIds.forEach(tenantId -> syncTenant(tenantId, Optional.ofNullable(stored.get(tenantId))));
+    }
+
+    /**
+     * Registers, replaces or removes a tenant on this replica to match its stored state. A configured tenant
+     * without a stored entry stays as configured.
+     */
+    private synchronized void syncTenant(String tenantId, Optional<StoredTenant> stored) {
+        try {
+            if (stored.isPresent() && !stored.get().deleted()) {
+                if (isRegisteredAs(stored.get())) {
+                    return;
+                }
+                logger.info("Registering tenant {} stored by another replica", tenantId);
+                evictTenant(tenantId);
+                registerTenant(stored.get());
+            } else if (stored.isPresent() || !configuredTenants.contains(tenantId)) {
+                if (evictTenant(tenantId)) {
+                    logger.info("Removed tenant {} deleted on another replica", tenantId);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not synchronize tenant {} with the tenant store", tenantId, e);
+        }
+    }
+
+    private boolean isRegisteredAs(StoredTenant stored) {
+        var tenant = tenantPropertiesRepository.getTenant(stored.tenantId());
+        if (tenant == null
+                || !Objects.equals(tenant.getPartyId(), stored.partyId())
+                || !Objects.equals(tenant.getWalletUrl(), stored.walletUrl())
+                || !Objects.equals(tenant.getUsers(), stored.users())) {
+            return false;
+        }
+        return !auth.isOAuth2Enabled() || authClientRegistrationRepository.getClientRegistrations().stream()
+                .anyMatch(c -> c.getTenantId().equals(stored.tenantId())
+                        && c.getClientId().equals(stored.clientId())
+                        && c.getIssuerURL().equals(stored.issuerUrl()));
+    }
+
+    /**
+     * Removes a tenant and its client registration or users from this replica.
+     *
+     * @return whether the tenant was registered here
+     */
+    private synchronized boolean evictTenant(String tenantId) {
+        var tenant = tenantPropertiesRepository.getTenant(tenantId);
+        if (tenant == null) {
+            return false;
+        }
+        try {
+            if (auth.isOAuth2Enabled()) {
+                authClientRegistrationRepository.removeClientRegistrations(tenantId);
+            } else if (tenant.getUsers() != null) {
+                tenant.getUsers().forEach(userDetailsManager.get()::deleteUser);
+            }
+        } catch (NoSuchElementException e) {
+            // registrations already gone
+        }
+        try {
+            tenantPropertiesRepository.removeTenant(tenantId);
+        } catch (NoSuchElementException e) {
+            // removed concurrently
+        }
+        return true;
+    }
+
+    /**
+     * Registers a stored tenant on this replica: its OAuth2 client or shared-secret users, then its properties.
+     */
+    private synchronized void registerTenant(StoredTenant tenant) {
+        if (auth.isOAuth2Enabled()) {
+            registerOAuthClient(tenant);
+        } else {
+            registerSharedSecretUsers(tenant);
+        }
+        persistTenantMetadata(tenant);
     }
 
     private void validateRequest(@NotNull TenantRegistrationRequest request) {
@@ -101,41 +231,36 @@ public class AdminApiImpl implements AdminApi {
         }
     }
 
-    private void registerOAuthClient(TenantRegistrationRequest request) {
+    private void registerOAuthClient(StoredTenant tenant) {
             Client c = new Client();
-            c.setTenantId(request.getTenantId());
-            c.setClientId(request.getClientId());
-            c.setIssuerURL(request.getIssuerUrl());
+            c.setTenantId(tenant.tenantId());
+            c.setClientId(tenant.clientId());
+            c.setIssuerURL(tenant.issuerUrl());
             authClientRegistrationRepository.registerClient(c);
     }
 
-    private void registerSharedSecretUsers(TenantRegistrationRequest request) {
-        request.getUsers().forEach(user -> {
+    private void registerSharedSecretUsers(StoredTenant tenant) {
+        tenant.users().forEach(user -> {
             logger.info("Creating user {} with roles {}", user, "USER");
-            try {
-                userDetailsManager.get().createUser(
-                    // TODO KV https://github.com/digital-asset/cn-quickstart/issues/235
-                    //  fix this API leak, we should not rely on Spring Security here
-                    org.springframework.security.core.userdetails.User
-                        .withUsername(user)
-                        .password("{noop}")
-                        .roles("USER")
-                        .build()
-                );
-            } catch (Exception e) {
-                logger.error("Error creating user {}: {}", user, e.getMessage());
-                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage(), e);
-            }
+            userDetailsManager.get().createUser(
+                // TODO KV https://github.com/digital-asset/cn-quickstart/issues/235
+                //  fix this API leak, we should not rely on Spring Security here
+                org.springframework.security.core.userdetails.User
+                    .withUsername(user)
+                    .password("{noop}")
+                    .roles("USER")
+                    .build()
+            );
         });
     }
 
-    private void persistTenantMetadata(TenantRegistrationRequest request) {
+    private void persistTenantMetadata(StoredTenant tenant) {
         TenantPropertiesRepository.TenantProperties props = new TenantPropertiesRepository.TenantProperties();
-        props.setWalletUrl(request.getWalletUrl());
-        props.setPartyId(request.getPartyId());
-        props.setTenantId(request.getTenantId());
-        props.setUsers(request.getUsers());
-        tenantPropertiesRepository.addTenant(request.getTenantId(), props);
+        props.setWalletUrl(tenant.walletUrl());
+        props.setPartyId(tenant.partyId());
+        props.setTenantId(tenant.tenantId());
+        props.setUsers(tenant.users());
+        tenantPropertiesRepository.addTenant(tenant.tenantId(), props);
     }
 
     private TenantRegistration buildResponse(TenantRegistrationRequest request) {
@@ -164,13 +289,20 @@ public class AdminApiImpl implements AdminApi {
         return auth.asAdminParty(party -> traceServiceCallAsync(ctx, () -> CompletableFuture.supplyAsync(() -> {
             validateRequest(request);
             ensureTenantIsUnique(request);
-            if (auth.isOAuth2Enabled()) {
-                registerOAuthClient(request);
-            } else {
-                registerSharedSecretUsers(request);
+            var tenant = StoredTenant.registered(request.getTenantId(), request.getPartyId(), request.getWalletUrl(),
+                    request.getClientId(), request.getIssuerUrl(), request.getUsers());
+            if (!tenantRegistrationStore.insert(tenant)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "TenantId already exists");
+            }
+            try {
+                registerTenant(tenant);
+            } catch (RuntimeException e) {
+                logger.error("Error registering tenant {}: {}", tenant.tenantId(), e.getMessage());
+                tenantRegistrationStore.delete(tenant.tenantId(), configuredTenants.contains(tenant.tenantId()));
+                evictTenant(tenant.tenantId());
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage(), e);
             }
-            // Save extra properties in a separate repository
-            persistTenantMetadata(request);
+            invalidationBus.publish(TENANT_TOPIC, tenant.tenantId());
             // Build the response (OpenAPI model)
             return ResponseEntity.status(HttpStatus.CREATED).body(buildResponse(request));
         })));
@@ -181,19 +313,18 @@ public class AdminApiImpl implements AdminApi {
     public CompletableFuture<ResponseEntity<Void>> deleteTenantRegistration(String tenantId) {
         var ctx = tracingCtx(logger, "deleteTenantRegistration", "tenantId", tenantId);
         return auth.asAdminParty(party -> traceServiceCallAsync(ctx, () -> CompletableFuture.supplyAsync(() -> {
+            boolean stored;
             try {
-                if (auth.isOAuth2Enabled()) {
-                    authClientRegistrationRepository.removeClientRegistrations(tenantId);
-                } else {
-                    tenantPropertiesRepository.getTenant(tenantId).getUsers().forEach(userDetailsManager.get()::deleteUser);
-                }
-
-                tenantPropertiesRepository.removeTenant(tenantId);
-            } catch (NoSuchElementException e) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
-            } catch (Exception e) {
+                stored = tenantRegistrationStore.delete(tenantId, configuredTenants.contains(tenantId));
+            } catch (DataAccessException e) {
                 throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage(), e);
             }
+            // a tenant registered here but not in the store is one this replica did not see deleted yet
+            boolean registered = evictTenant(tenantId);
+            if (!stored && !registered) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, String.format("No tenant found for tenantId = %s.", tenantId));
+            }
+            invalidationBus.publish(TENANT_TOPIC, tenantId);
             return ResponseEntity.status(HttpStatus.NO_CONTENT).<Void>build();
         })));
     }
@@ -3,18 +3,25 @@
 
 package com.digitalasset.quickstart.service;
 
+import static com.digitalasset.quickstart.service.ServiceUtils.checkPageLimit;
+import static com.digitalasset.quickstart.service.ServiceUtils.decodePageToken;
 import static com.digitalasset.quickstart.service.ServiceUtils.ensurePresent;
+import static com.digitalasset.quickstart.service.ServiceUtils.ledgerResponse;
+import static com.digitalasset.quickstart.service.ServiceUtils.pageResponse;
 import static com.digitalasset.quickstart.service.ServiceUtils.traceServiceCallAsync;
 import static com.digitalasset.quickstart.utility.TracingUtils.tracingCtx;
 
 import com.digitalasset.quickstart.api.AppInstallRequestsApi;
 import com.digitalasset.quickstart.ledger.LedgerApi;
+import com.digitalasset.quickstart.ledger.LedgerApi.ResponseShape;
 import com.digitalasset.quickstart.repository.DamlRepository;
+import com.digitalasset.quickstart.repository.Page;
 import com.digitalasset.quickstart.security.AuthUtils;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 import org.openapitools.model.AppInstall;
@@ -40,16 +47,19 @@ public class AppInstallRequestsApiImpl implements AppInstallRequestsApi {
     private final LedgerApi ledger;
     private final AuthUtils auth;
     private final DamlRepository damlRepository;
+    private final CommandStatuses commandStatuses;
 
     @Autowired
     public AppInstallRequestsApiImpl(
             LedgerApi ledger,
             AuthUtils auth,
-            DamlRepository damlRepository
+            DamlRepository damlRepository,
+            CommandStatuses commandStatuses
     ) {
         this.ledger = ledger;
         this.auth = auth;
         this.damlRepository = damlRepository;
+        this.commandStatuses = commandStatuses;
     }
 
     @Override
@@ -57,13 +67,14 @@ public class AppInstallRequestsApiImpl implements AppInstallRequestsApi {
     public CompletableFuture<ResponseEntity<AppInstall>> acceptAppInstallRequest(
             String contractId,
             String commandId,
+            String prefer,
             AppInstallRequestAccept appInstallRequestAccept
     ) {
         var ctx = tracingCtx(logger, "acceptAppInstallRequest",
                 "contractId", contractId,
                 "commandId", commandId
         );
-        return auth.asAdminParty(party -> traceServiceCallAsync(ctx, () ->
+        return auth.asAdminParty(party -> commandStatuses.run(party, commandId, prefer, () -> traceServiceCallAsync(ctx, () ->
                 damlRepository.findAppInstallRequestById(contractId).thenComposeAsync(optContract -> {
                     var contract = ensurePresent(optContract, "AppInstallRequest not found for contract %s", contractId);
                     var choice = new quickstart_licensing.licensing.appinstall.AppInstallRequest.AppInstallRequest_Accept(
@@ -72,30 +83,33 @@ public class AppInstallRequestsApiImpl implements AppInstallRequestsApi {
                             new splice_api_token_metadata_v1.splice.api.token.metadatav1.Metadata(
                                     appInstallRequestAccept.getMeta().getData()));
 
-                    return ledger.exerciseAndGetResult(contract.contractId, choice, commandId)
-                            .thenApply(appInstallContractId -> {
+                    return ledger.exercise(contract.contractId, choice, commandId, ResponseShape.COMPLETION_ONLY)
+                            .thenApply(exercised -> {
                                 AppInstall appInstall = new AppInstall();
                                 appInstall.setProvider(contract.payload.getProvider.getParty);
                                 appInstall.setUser(contract.payload.getUser.getParty);
                                 appInstall.setMeta(appInstallRequestAccept.getInstallMeta());
                                 appInstall.setNumLicensesCreated(0);
-                                return ResponseEntity.status(HttpStatus.CREATED).body(appInstall);
+                                return ledgerResponse(HttpStatus.CREATED, exercised.offset()).body(appInstall);
                             });
                 })
-        ));
+        )));
     }
 
     @Override
     @WithSpan
-    public CompletableFuture<ResponseEntity<List<AppInstallRequest>>> listAppInstallRequests() {
-        var ctx = tracingCtx(logger, "listAppInstallRequests");
+    public CompletableFuture<ResponseEntity<List<AppInstallRequest>>> listAppInstallRequests(Integer limit, String pageToken, Long xLedgerOffset) {
+        var ctx = tracingCtx(logger, "listAppInstallRequests",
+                "limit", limit,
+                "pageToken", pageToken,
+                "minLedgerOffset", xLedgerOffset
+        );
+        var pageLimit = checkPageLimit(limit);
+        var after = decodePageToken(pageToken, DamlRepository.CONTRACTS_PAGE_KEYS);
         return auth.asAuthenticatedParty(party -> traceServiceCallAsync(ctx, () ->
-                damlRepository.findActiveAppInstallRequests().thenApplyAsync(contracts -> {
-                    List<AppInstallRequest> result = contracts.stream().filter(contract -> {
-                        String user = contract.payload.getUser.getParty;
-                        String provider = contract.payload.getProvider.getParty;
-                        return party.equals(user) || party.equals(provider);
-                    }).map(contract -> {
+                damlRepository.awaitOffset(Optional.ofNullable(xLedgerOffset))
+                        .thenCompose(v -> damlRepository.findActiveAppInstallRequests(party, pageLimit, after)).thenApplyAsync(page -> {
+                    List<AppInstallRequest> result = page.items().stream().map(contract -> {
                         AppInstallRequest appInstallRequest = new AppInstallRequest();
                         appInstallRequest.setContractId(contract.contractId.getContractId);
                         appInstallRequest.setProvider(contract.payload.getProvider.getParty);
@@ -104,7 +118,7 @@ public class AppInstallRequestsApiImpl implements AppInstallRequestsApi {
                         appInstallRequest.getMeta().setData(contract.payload.getMeta.getValues);
                         return appInstallRequest;
                     }).toList();
-                    return ResponseEntity.ok(result);
+                    return pageResponse(new Page<>(result, page.next()));
                 })
         ));
     }
@@ -125,8 +139,8 @@ public class AppInstallRequestsApiImpl implements AppInstallRequestsApi {
                     .thenComposeAsync(optContract -> {
                         var contract = ensurePresent(optContract, "AppInstallRequest not found for contract %s", contractId);
                         var choice = new AppInstallRequest_Reject(new Metadata(appInstallRequestReject.getMeta().getData()));
-                        return ledger.exerciseAndGetResult(contract.contractId, choice, commandId)
-                                   .thenApply(result -> ResponseEntity.noContent().build());
+                        return ledger.exercise(contract.contractId, choice, commandId, ResponseShape.COMPLETION_ONLY)
+                                   .thenApply(exercised -> ledgerResponse(HttpStatus.NO_CONTENT, exercised.offset()).build());
                 })
         ));
     }
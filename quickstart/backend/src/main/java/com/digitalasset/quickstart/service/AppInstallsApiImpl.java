@@ -3,25 +3,36 @@
 
 package com.digitalasset.quickstart.service;
 
+import static com.digitalasset.quickstart.service.ServiceUtils.checkPageLimit;
+import static com.digitalasset.quickstart.service.ServiceUtils.decodePageToken;
 import static com.digitalasset.quickstart.service.ServiceUtils.ensurePresent;
+import static com.digitalasset.quickstart.service.ServiceUtils.ledgerResponse;
+import static com.digitalasset.quickstart.service.ServiceUtils.pageResponse;
 import static com.digitalasset.quickstart.service.ServiceUtils.traceServiceCallAsync;
 import static com.digitalasset.quickstart.utility.TracingUtils.tracingCtx;
 
 import com.digitalasset.quickstart.api.AppInstallsApi;
+import com.digitalasset.quickstart.ledger.ContractSerializer;
 import com.digitalasset.quickstart.ledger.LedgerApi;
+import com.digitalasset.quickstart.ledger.LedgerApi.ResponseShape;
+import com.digitalasset.quickstart.pqs.Contract;
 import com.digitalasset.quickstart.repository.DamlRepository;
 import com.digitalasset.quickstart.security.AuthUtils;
+import com.digitalasset.transcode.java.ContractId;
 import com.digitalasset.transcode.java.Party;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 import org.openapitools.model.AppInstallCancel;
+import org.openapitools.model.AppInstallChanges;
 import org.openapitools.model.AppInstallCreateLicenseRequest;
 import org.openapitools.model.AppInstallCreateLicenseResult;
+import org.openapitools.model.BulkAppInstallCancelRequest;
+import org.openapitools.model.BulkCommandResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +41,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.server.ResponseStatusException;
+import quickstart_licensing.licensing.appinstall.AppInstall;
 import quickstart_licensing.licensing.appinstall.AppInstall.AppInstall_Cancel;
 import quickstart_licensing.licensing.appinstall.AppInstall.AppInstall_CreateLicense;
 import quickstart_licensing.licensing.license.LicenseParams;
@@ -42,57 +54,98 @@ public class AppInstallsApiImpl implements AppInstallsApi {
     private final LedgerApi ledger;
     private final DamlRepository damlRepository;
     private final AuthUtils auth;
+    private final CommandStatuses commandStatuses;
+    private final BulkCommands bulkCommands;
+    private final ContractSerializer contractSerializer;
 
     private static final Logger logger = LoggerFactory.getLogger(AppInstallsApiImpl.class);
 
     @Autowired
-    public AppInstallsApiImpl(LedgerApi ledger, DamlRepository damlRepository, AuthUtils auth) {
+    public AppInstallsApiImpl(
+            LedgerApi ledger,
+            DamlRepository damlRepository,
+            AuthUtils auth,
+            CommandStatuses commandStatuses,
+            BulkCommands bulkCommands,
+            ContractSerializer contractSerializer
+    ) {
         this.ledger = ledger;
         this.damlRepository = damlRepository;
         this.auth = auth;
+        this.commandStatuses = commandStatuses;
+        this.bulkCommands = bulkCommands;
+        this.contractSerializer = contractSerializer;
+    }
+
+    @Override
+    @WithSpan
+    public CompletableFuture<ResponseEntity<List<org.openapitools.model.AppInstall>>> listAppInstalls(Integer limit, String pageToken, Long xLedgerOffset) {
+        var ctx = tracingCtx(logger, "listAppInstalls",
+                "limit", limit,
+                "pageToken", pageToken,
+                "minLedgerOffset", xLedgerOffset
+        );
+        var pageLimit = checkPageLimit(limit);
+        var after = decodePageToken(pageToken, DamlRepository.CONTRACTS_PAGE_KEYS);
+        return auth.asAuthenticatedParty(party -> traceServiceCallAsync(ctx, () ->
+                damlRepository.awaitOffset(Optional.ofNullable(xLedgerOffset))
+                        .thenCompose(v -> damlRepository.currentOffset())
+                        .thenCompose(offset -> damlRepository.findActiveAppInstalls(party, pageLimit, after)
+                                .thenApply(page -> pageResponse(page.map(AppInstallsApiImpl::toAppInstallApi), offset)))
+        ));
     }
 
+    /**
+     * Lists the AppInstall contracts visible to the authenticated party created or archived after the given
+     * ledger offset, so that clients can refresh a listing without fetching it again.
+     */
     @Override
     @WithSpan
-    public CompletableFuture<ResponseEntity<List<org.openapitools.model.AppInstall>>> listAppInstalls() {
-        var ctx = tracingCtx(logger, "listAppInstalls");
+    public CompletableFuture<ResponseEntity<AppInstallChanges>> listAppInstallChanges(Long sinceOffset, Long xLedgerOffset) {
+        var ctx = tracingCtx(logger, "listAppInstallChanges",
+                "sinceOffset", sinceOffset,
+                "minLedgerOffset", xLedgerOffset
+        );
         return auth.asAuthenticatedParty(party -> traceServiceCallAsync(ctx, () ->
-                damlRepository.findActiveAppInstalls().thenApplyAsync(contracts -> {
-                    List<org.openapitools.model.AppInstall> result = contracts.stream().filter(contract -> {
-                        String provider = contract.payload.getProvider.getParty;
-                        String user = contract.payload.getUser.getParty;
-                        return party.equals(provider) || party.equals(user);
-                    }).map(contract -> {
-                        org.openapitools.model.AppInstall model = new org.openapitools.model.AppInstall();
-                        model.setContractId(contract.contractId.getContractId);
-                        model.setProvider(contract.payload.getProvider.getParty);
-                        model.setUser(contract.payload.getUser.getParty);
-
-                        org.openapitools.model.Metadata metaModel = new org.openapitools.model.Metadata();
-                        metaModel.setData(contract.payload.getMeta.getValues);
-                        model.setMeta(metaModel);
-
-                        model.setNumLicensesCreated(contract.payload.getNumLicensesCreated.intValue());
-                        return model;
-                    }).collect(Collectors.toList());
-                    return ResponseEntity.ok(result);
+                damlRepository.findAppInstallChanges(party, sinceOffset, Optional.ofNullable(xLedgerOffset)).thenApply(found -> {
+                    var changes = found.map(AppInstallsApiImpl::toAppInstallApi);
+                    var response = new AppInstallChanges();
+                    response.setOffset(changes.offset());
+                    response.setChanged(changes.changed());
+                    response.setArchived(changes.archived());
+                    return ResponseEntity.ok(response);
                 })
         ));
     }
 
+    private static org.openapitools.model.AppInstall toAppInstallApi(Contract<AppInstall> contract) {
+        org.openapitools.model.AppInstall model = new org.openapitools.model.AppInstall();
+        model.setContractId(contract.contractId.getContractId);
+        model.setProvider(contract.payload.getProvider.getParty);
+        model.setUser(contract.payload.getUser.getParty);
+
+        org.openapitools.model.Metadata metaModel = new org.openapitools.model.Metadata();
+        metaModel.setData(contract.payload.getMeta.getValues);
+        model.setMeta(metaModel);
+
+        model.setNumLicensesCreated(contract.payload.getNumLicensesCreated.intValue());
+        return model;
+    }
+
     @Override
     @WithSpan
     public CompletableFuture<ResponseEntity<AppInstallCreateLicenseResult>> createLicense(
             String contractId,
             String commandId,
+            String prefer,
             AppInstallCreateLicenseRequest createLicenseRequest
     ) {
         var ctx = tracingCtx(logger, "createLicense",
                 "contractId", contractId,
                 "commandId", commandId
         );
-        return auth.asAdminParty(party -> traceServiceCallAsync(ctx, () ->
-                damlRepository.findAppInstallById(contractId).thenComposeAsync(optContract -> {
+        return auth.asAdminParty(party -> commandStatuses.run(party, commandId, prefer, () -> traceServiceCallAsync(ctx, () ->
+                findAppInstallOrSuccessor(contractId).thenComposeAsync(optContract -> {
                     var contract = ensurePresent(optContract, "AppInstall not found for contract %s", contractId);
                     String providerParty = contract.payload.getProvider.getParty;
                     if (!party.equals(providerParty)) {
@@ -101,15 +154,18 @@ public class AppInstallsApiImpl implements AppInstallsApi {
                     Metadata paramsMeta = new Metadata(createLicenseRequest.getParams().getMeta().getData());
                     LicenseParams params = new LicenseParams(paramsMeta);
                     AppInstall_CreateLicense choice = new AppInstall_CreateLicense(params);
-                    return ledger.exerciseAndGetResult(contract.contractId, choice, commandId)
-                            .thenApply(licenseContractId -> {
+                    // the choice recreates the install, so concurrent calls for it would contend
+                    return contractSerializer.submit(contractId,
+                                    installId -> ledger.exercise(new ContractId<AppInstall>(installId), choice, commandId, ResponseShape.EXERCISE_RESULT),
+                                    exercised -> Optional.of(exercised.result().getInstallId.getContractId))
+                            .thenApply(exercised -> {
                                 AppInstallCreateLicenseResult result = new AppInstallCreateLicenseResult();
-                                result.setInstallId(contractId);
-                                result.setLicenseId(licenseContractId.getLicenseId.getContractId);
-                                return ResponseEntity.status(HttpStatus.CREATED).body(result);
+                                result.setInstallId(exercised.result().getInstallId.getContractId);
+                                result.setLicenseId(exercised.result().getLicenseId.getContractId);
+                                return ledgerResponse(HttpStatus.CREATED, exercised.offset()).body(result);
                             });
                 })
-        ));
+        )));
     }
 
     @Override
@@ -136,9 +192,43 @@ public class AppInstallsApiImpl implements AppInstallsApi {
                         // topologically we can only act as the provider
                         Party provider = new Party(auth.getAppProviderPartyId());
                         AppInstall_Cancel choice = new AppInstall_Cancel(provider, meta);
-                        return ledger.exerciseAndGetResult(contract.contractId, choice, commandId)
-                                .thenApply(result -> ResponseEntity.noContent().build());
+                        return ledger.exercise(contract.contractId, choice, commandId, ResponseShape.COMPLETION_ONLY)
+                                .thenApply(exercised -> ledgerResponse(HttpStatus.NO_CONTENT, exercised.offset()).build());
                 })
         ));
     }
+
+    /**
+     * Looks up the install, or the successor this replica created for it if it has been consumed since.
+     */
+    private CompletableFuture<Optional<Contract<AppInstall>>> findAppInstallOrSuccessor(String contractId) {
+        return damlRepository.findAppInstallById(contractId).thenCompose(found -> {
+            String successor = contractSerializer.resolve(contractId);
+            return found.isPresent() || successor.equals(contractId)
+                    ? CompletableFuture.completedFuture(found)
+                    : damlRepository.findAppInstallById(successor);
+        });
+    }
+
+    /**
+     * Cancels many AppInstalls with as few transactions as possible, as the provider.
+     */
+    @Override
+    @WithSpan
+    public CompletableFuture<ResponseEntity<BulkCommandResult>> cancelAppInstalls(
+            String commandId,
+            BulkAppInstallCancelRequest request
+    ) {
+        BulkCommands.checkContractIds(request.getContractIds());
+        BulkCommands.requireProperty(request.getMeta(), "meta");
+        var ctx = tracingCtx(logger, "cancelAppInstalls",
+                "commandId", commandId,
+                "count", request.getContractIds().size()
+        );
+        return auth.asAdminParty(party -> traceServiceCallAsync(ctx, () -> {
+            var choice = new AppInstall_Cancel(new Party(auth.getAppProviderPartyId()), new Metadata(request.getMeta().getData()));
+            return bulkCommands.run(commandId, request.getContractIds(),
+                    contractId -> new LedgerApi.Exercise<>(new ContractId<AppInstall>(contractId), choice));
+        }));
+    }
 }
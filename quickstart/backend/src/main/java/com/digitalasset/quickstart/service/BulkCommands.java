@@ -0,0 +1,296 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.service;
+
+import com.digitalasset.quickstart.config.LedgerConfig;
+import com.digitalasset.quickstart.ledger.LedgerApi;
+import com.google.protobuf.Any;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.rpc.ErrorInfo;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.protobuf.StatusProto;
+import org.openapitools.model.BulkCommandResult;
+import org.openapitools.model.BulkItemResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Exercises a choice on many contracts with few transactions. The contracts are packed into transactions of
+ * {@code ledger.batch.commands-per-transaction} commands, at most {@code ledger.batch.parallelism} of which
+ * are in flight at a time. A transaction commits all of its commands or none, so when the ledger rejects one,
+ * e.g. because one of its contracts is no longer active, its commands are retried one transaction each to
+ * find out which of them fail. Every contract gets its own result.
+ * <p>
+ * Transactions get the bulk request's command ID with a digest of their contract IDs appended, so that
+ * retrying the request with the same command ID is deduplicated by the ledger like a single command would
+ * be. Since the digest covers exactly the contracts of a transaction, a transaction is only deduplicated
+ * if an earlier attempt submitted the same contracts in one transaction, however the request's list was
+ * ordered or chunked. Commands the ledger rejects as duplicates took effect on the earlier attempt and are
+ * reported as succeeded, with the offset of that attempt when the ledger includes it in the rejection.
+ * <p>
+ * Errors are reported per contract as a short reason by status; details of ledger errors are only logged.
+ */
+@Component
+class BulkCommands {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkCommands.class);
+
+    // rejections caused by the commands themselves rather than by the ledger being unavailable
+    private static final Set<Status.Code> REJECTIONS = Set.of(
+            Status.Code.NOT_FOUND,
+            Status.Code.FAILED_PRECONDITION,
+            Status.Code.INVALID_ARGUMENT
+    );
+
+    // as declared by the maxItems of the bulk request schemas
+    static final int MAX_CONTRACT_IDS = 1000;
+
+    // key of the offset of the original command in the metadata of the ledger's duplicate command error
+    private static final String COMPLETION_OFFSET = "completion_offset";
+
+    private final LedgerApi ledger;
+    private final int commandsPerTransaction;
+    private final int parallelism;
+
+    BulkCommands(LedgerApi ledger, LedgerConfig ledgerConfig) {
+        this.ledger = ledger;
+        var config = ledgerConfig.getBatch();
+        if (config.getCommandsPerTransaction() < 1 || config.getParallelism() < 1) {
+            throw new IllegalArgumentException("ledger.batch.commands-per-transaction and ledger.batch.parallelism must be at least 1");
+        }
+        this.commandsPerTransaction = config.getCommandsPerTransaction();
+        this.parallelism = config.getParallelism();
+    }
+
+    /**
+     * Checks the contract IDs of a bulk request. The bounds in the OpenAPI spec are not enforced by the
+     * generated interfaces, so every bulk endpoint checks them before doing anything else.
+     *
+     * @throws ResponseStatusException with status 400 if there are none or more than 1000
+     */
+    static void checkContractIds(List<String> contractIds) {
+        if (contractIds == null || contractIds.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "contractIds must not be empty");
+        }
+        if (contractIds.size() > MAX_CONTRACT_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("contractIds must not contain more than %d items", MAX_CONTRACT_IDS));
+        }
+        if (contractIds.stream().anyMatch(id -> id == null || id.isBlank())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "contractIds must not contain blank items");
+        }
+    }
+
+    /**
+     * Checks a required property of a bulk request that the generated interfaces do not check.
+     *
+     * @throws ResponseStatusException with status 400 if it is missing
+     */
+    static <T> T requireProperty(T value, String name) {
+        if (value == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, name + " is required");
+        }
+        return value;
+    }
+
+    /**
+     * Exercises the choice built by toExercise on each of the contracts, and responds with one result per
+     * distinct contract ID in request order. The X-Ledger-Offset header is that of the last transaction that
+     * succeeded, if any.
+     */
+    CompletableFuture<ResponseEntity<BulkCommandResult>> run(
+            String commandId,
+            List<String> contractIds,
+            Function<String, LedgerApi.Exercise<?>> toExercise
+    ) {
+        // a contract can only be consumed once per transaction
+        List<String> ids = List.copyOf(new LinkedHashSet<>(contractIds));
+        var results = new BulkItemResult[ids.size()];
+        var chunks = new ArrayList<List<Integer>>();
+        for (int start = 0; start < ids.size(); start += commandsPerTransaction) {
+            var chunk = new ArrayList<Integer>();
+            for (int i = start; i < Math.min(start + commandsPerTransaction, ids.size()); i++) {
+                chunk.add(i);
+            }
+            chunks.add(chunk);
+        }
+        var next = new AtomicInteger();
+        var lanes = new CompletableFuture<?>[Math.min(parallelism, chunks.size())];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = lane(commandId, ids, toExercise, chunks, next, results);
+        }
+        return CompletableFuture.allOf(lanes).thenApply(v -> {
+            var response = new BulkCommandResult();
+            response.setItems(Arrays.asList(results));
+            var offset = response.getItems().stream()
+                    .filter(item -> item.getLedgerOffset() != null)
+                    .mapToLong(BulkItemResult::getLedgerOffset)
+                    .max();
+            return offset.isPresent()
+                    ? ServiceUtils.ledgerResponse(HttpStatus.OK, offset.getAsLong()).body(response)
+                    : ResponseEntity.ok(response);
+        });
+    }
+
+    /**
+     * Submits the chunks not yet taken by another lane one after the other.
+     */
+    private CompletableFuture<Void> lane(
+            String commandId,
+            List<String> ids,
+            Function<String, LedgerApi.Exercise<?>> toExercise,
+            List<List<Integer>> chunks,
+            AtomicInteger next,
+            BulkItemResult[] results
+    ) {
+        int index = next.getAndIncrement();
+        if (index >= chunks.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        var chunk = chunks.get(index);
+        var chunkCommandId = transactionCommandId(commandId, chunk.stream().map(ids::get).toList());
+        return submit(chunkCommandId, chunk, ids, toExercise, results)
+                .thenCompose(rejected -> {
+                    if (!rejected || chunk.size() == 1) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    logger.info("Transaction {} of bulk command {} was rejected; retrying its {} commands one by one",
+                            index, commandId, chunk.size());
+                    CompletableFuture<Boolean> singles = CompletableFuture.completedFuture(false);
+                    for (Integer item : chunk) {
+                        singles = singles.thenCompose(r ->
+                                submit(transactionCommandId(commandId, List.of(ids.get(item))), List.of(item), ids, toExercise, results));
+                    }
+                    return singles.thenApply(r -> null);
+                })
+                .thenCompose(v -> lane(commandId, ids, toExercise, chunks, next, results));
+    }
+
+    /**
+     * The command ID of the transaction exercising the given contracts: the bulk request's command ID and
+     * a digest of the sorted contract IDs.
+     */
+    static String transactionCommandId(String commandId, List<String> contractIds) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        contractIds.stream().sorted().forEach(id -> {
+            digest.update(id.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        });
+        // 128 bits keep the command ID short enough for the ledger's 255 character limit
+        return commandId + "-" + HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    /**
+     * Submits the items in one transaction and records their results. Completes with whether the
+     * ledger rejected the transaction because of its commands.
+     */
+    private CompletableFuture<Boolean> submit(
+            String commandId,
+            List<Integer> items,
+            List<String> ids,
+            Function<String, LedgerApi.Exercise<?>> toExercise,
+            BulkItemResult[] results
+    ) {
+        CompletableFuture<Long> submitted;
+        try {
+            submitted = ledger.exerciseAll(items.stream().<LedgerApi.Exercise<?>>map(i -> toExercise.apply(ids.get(i))).toList(), commandId);
+        } catch (RuntimeException e) {
+            submitted = CompletableFuture.failedFuture(e);
+        }
+        return submitted.handle((offset, e) -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            Long ledgerOffset = offset;
+            boolean duplicate = false;
+            if (cause instanceof StatusRuntimeException sre && sre.getStatus().getCode() == Status.Code.ALREADY_EXISTS) {
+                // committed by an earlier attempt of the same bulk request
+                duplicate = true;
+                OptionalLong original = originalOffset(sre);
+                ledgerOffset = original.isPresent() ? original.getAsLong() : null;
+            } else if (cause != null) {
+                logger.info("Transaction {} with {} commands failed", commandId, items.size(), cause);
+            }
+            for (Integer i : items) {
+                var result = new BulkItemResult();
+                result.setContractId(ids.get(i));
+                if (cause == null || duplicate) {
+                    result.setStatus(BulkItemResult.StatusEnum.SUCCEEDED);
+                    result.setLedgerOffset(ledgerOffset);
+                } else {
+                    result.setStatus(BulkItemResult.StatusEnum.FAILED);
+                    result.setError(reason(cause));
+                }
+                results[i] = result;
+            }
+            return cause instanceof StatusRuntimeException sre && REJECTIONS.contains(sre.getStatus().getCode());
+        });
+    }
+
+    /**
+     * The offset of the command a duplicate was rejected for, if the ledger reports it.
+     */
+    private static OptionalLong originalOffset(StatusRuntimeException e) {
+        var status = StatusProto.fromThrowable(e);
+        if (status == null) {
+            return OptionalLong.empty();
+        }
+        for (Any detail : status.getDetailsList()) {
+            if (!detail.is(ErrorInfo.class)) {
+                continue;
+            }
+            try {
+                String offset = detail.unpack(ErrorInfo.class).getMetadataMap().get(COMPLETION_OFFSET);
+                if (offset != null) {
+                    return OptionalLong.of(Long.parseLong(offset));
+                }
+            } catch (InvalidProtocolBufferException | NumberFormatException ex) {
+                logger.debug("Unreadable duplicate command error details", ex);
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * A reason for the failure that is safe to show to API clients.
+     */
+    private static String reason(Throwable cause) {
+        if (cause instanceof ResponseStatusException rse && rse.getReason() != null) {
+            return rse.getReason();
+        }
+        if (!(cause instanceof StatusRuntimeException sre)) {
+            return "The command failed";
+        }
+        return switch (sre.getStatus().getCode()) {
+            case NOT_FOUND -> "The contract is not active";
+            case FAILED_PRECONDITION, INVALID_ARGUMENT -> "The ledger rejected the command";
+            case PERMISSION_DENIED, UNAUTHENTICATED -> "Not authorized to submit the command";
+            case RESOURCE_EXHAUSTED, UNAVAILABLE, DEADLINE_EXCEEDED, ABORTED -> "The ledger is busy; retry later";
+            default -> "The command failed";
+        };
+    }
+}
@@ -0,0 +1,209 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.service;
+
+import com.digitalasset.quickstart.config.LedgerConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openapitools.model.CommandStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.web.ErrorProperties;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs ledger commands for clients that send {@code Prefer: respond-async}: the command endpoint answers
+ * 202 Accepted right away and the outcome is kept here, by command ID, for {@code GET /commands/{commandId}}.
+ * A status turns from PENDING into SUCCEEDED or FAILED when the command's future completes, which in
+ * pipelined submission mode is driven by the completion stream. Statuses are kept in memory for
+ * {@code ledger.submission.status-retention}, so they are only visible on the replica that ran the command.
+ * Listeners are told about every completed status, e.g. to push it to the submitting party.
+ * <p>
+ * A failed command gets the status code and message the synchronous call would have responded with.
+ * Unexpected errors are reported as 500 with a generic message, so that internal details are not served.
+ */
+@Component
+public class CommandStatuses {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommandStatuses.class);
+
+    private static final String RESPOND_ASYNC = "respond-async";
+
+    public interface Listener {
+        void onCompleted(String party, CommandStatus status);
+    }
+
+    private record Entry(String party, CommandStatus status) {
+    }
+
+    private final Cache<String, Entry> statuses;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // whether error responses carry their message, as configured by server.error.include-message
+    private final boolean includeMessage;
+
+    public CommandStatuses(LedgerConfig ledgerConfig, ServerProperties serverProperties, MeterRegistry meterRegistry) {
+        this.includeMessage = serverProperties.getError().getIncludeMessage() == ErrorProperties.IncludeAttribute.ALWAYS;
+        var config = ledgerConfig.getSubmission();
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(config.getStatusRetention())
+                .maximumSize(config.getMaxTrackedCommands())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, statuses, "ledger.command-statuses");
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * The status of a command submitted asynchronously by the party, if it is still retained.
+     */
+    public Optional<CommandStatus> get(String party, String commandId) {
+        return Optional.ofNullable(statuses.getIfPresent(commandId))
+                .filter(entry -> entry.party().equals(party))
+                .map(Entry::status);
+    }
+
+    /**
+     * Runs the command and returns its response, or, if the Prefer header asks for an asynchronous
+     * response, returns 202 Accepted and records the outcome instead. Repeating an asynchronous request
+     * with a command ID that is still tracked does not run the command again.
+     */
+    <T> CompletableFuture<ResponseEntity<T>> run(
+            String party,
+            String commandId,
+            String prefer,
+            Supplier<CompletableFuture<ResponseEntity<T>>> command
+    ) {
+        if (!prefersAsync(prefer)) {
+            return command.get();
+        }
+        var pending = new Entry(party, status(commandId, CommandStatus.StatusEnum.PENDING));
+        var existing = statuses.asMap().putIfAbsent(commandId, pending);
+        if (existing != null && !existing.party().equals(party)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Command ID already in use");
+        }
+        // resolved on the request thread
+        var location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/commands/{commandId}")
+                .buildAndExpand(commandId)
+                .toUri();
+        if (existing == null) {
+            CompletableFuture<ResponseEntity<T>> future;
+            try {
+                future = command.get();
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete((response, e) -> complete(party, commandId, response, e));
+        }
+        return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(location)
+                .header("Preference-Applied", RESPOND_ASYNC)
+                .build());
+    }
+
+    private void complete(String party, String commandId, ResponseEntity<?> response, Throwable e) {
+        var status = e == null && response.getStatusCode().is2xxSuccessful()
+                ? succeeded(commandId, response)
+                : failed(commandId, response, e);
+        // a no-op if the pending status has been evicted meanwhile
+        statuses.asMap().computeIfPresent(commandId, (id, entry) -> new Entry(entry.party(), status));
+        for (Listener listener : listeners) {
+            try {
+                listener.onCompleted(party, status);
+            } catch (RuntimeException ex) {
+                logger.warn("Command status listener failed for command {}", commandId, ex);
+            }
+        }
+    }
+
+    private static CommandStatus succeeded(String commandId, ResponseEntity<?> response) {
+        var status = status(commandId, CommandStatus.StatusEnum.SUCCEEDED);
+        status.setHttpStatus(response.getStatusCode().value());
+        var offset = response.getHeaders().getFirst(ServiceUtils.LEDGER_OFFSET_HEADER);
+        if (offset != null) {
+            status.setLedgerOffset(Long.parseLong(offset));
+        }
+        status.setResult(response.getBody());
+        return status;
+    }
+
+    private CommandStatus failed(String commandId, ResponseEntity<?> response, Throwable e) {
+        var status = status(commandId, CommandStatus.StatusEnum.FAILED);
+        if (e == null) {
+            status.setHttpStatus(response.getStatusCode().value());
+            return status;
+        }
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        HttpStatusCode code;
+        String reason;
+        if (cause instanceof ResponseStatusException rse) {
+            code = rse.getStatusCode();
+            reason = rse.getReason();
+        } else if (cause instanceof ErrorResponse errorResponse) {
+            code = errorResponse.getStatusCode();
+            reason = errorResponse.getBody().getDetail();
+        } else {
+            var annotation = AnnotatedElementUtils.findMergedAnnotation(cause.getClass(), ResponseStatus.class);
+            code = annotation != null ? annotation.code() : HttpStatus.INTERNAL_SERVER_ERROR;
+            reason = annotation != null && !annotation.reason().isEmpty() ? annotation.reason() : null;
+            if (annotation == null) {
+                logger.warn("Command {} failed", commandId, cause);
+            }
+        }
+        status.setHttpStatus(code.value());
+        // like the error responses of the synchronous call; anything without an intended reason gets a generic one
+        var httpStatus = HttpStatus.resolve(code.value());
+        String generic = httpStatus != null ? httpStatus.getReasonPhrase() : "Error";
+        status.setError(includeMessage && reason != null ? reason : generic);
+        return status;
+    }
+
+    private static CommandStatus status(String commandId, CommandStatus.StatusEnum value) {
+        var status = new CommandStatus();
+        status.setCommandId(commandId);
+        status.setStatus(value);
+        return status;
+    }
+
+    private static boolean prefersAsync(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+        for (String preference : prefer.split(",")) {
+            if (preference.trim().split(";")[0].trim().equalsIgnoreCase(RESPOND_ASYNC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,50 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.service;
+
+import static com.digitalasset.quickstart.service.ServiceUtils.ensurePresent;
+import static com.digitalasset.quickstart.service.ServiceUtils.traceServiceCallAsync;
+import static com.digitalasset.quickstart.utility.TracingUtils.tracingCtx;
+
+import com.digitalasset.quickstart.api.CommandsApi;
+import com.digitalasset.quickstart.security.AuthUtils;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import org.openapitools.model.CommandStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reports the outcome of commands submitted with {@code Prefer: respond-async}.
+ */
+@Controller
+@RequestMapping("${openapi.asset.base-path:}")
+public class CommandsApiImpl implements CommandsApi {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommandsApiImpl.class);
+
+    private final CommandStatuses commandStatuses;
+    private final AuthUtils auth;
+
+    public CommandsApiImpl(CommandStatuses commandStatuses, AuthUtils auth) {
+        this.commandStatuses = commandStatuses;
+        this.auth = auth;
+    }
+
+    @Override
+    @WithSpan
+    public CompletableFuture<ResponseEntity<CommandStatus>> getCommandStatus(String commandId) {
+        var ctx = tracingCtx(logger, "getCommandStatus",
+                "commandId", commandId
+        );
+        return auth.asAuthenticatedParty(party -> traceServiceCallAsync(ctx, () ->
+                CompletableFuture.completedFuture(ResponseEntity.ok(
+                        ensurePresent(commandStatuses.get(party, commandId), "No status retained for command %s", commandId)))
+        ));
+    }
+}
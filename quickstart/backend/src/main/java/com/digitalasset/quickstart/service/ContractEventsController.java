@@ -0,0 +1,379 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.service;
+
+import com.digitalasset.quickstart.config.LedgerConfig;
+import com.digitalasset.quickstart.ledger.LedgerReadModel;
+import com.digitalasset.quickstart.security.AuthenticatedPartyProvider;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openapitools.model.CommandStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams creates and archives of the licensing contracts visible to the authenticated party as
+ * server-sent events. All connections are fed by the single update stream subscription of the
+ * {@link LedgerReadModel}: each change is serialized once, queued on the connections of its parties and
+ * written by a small shared pool, so open connections hold no thread. Events carry the template,
+ * contract ID and ledger offset; clients fetch the contracts themselves, passing the offset along.
+ * <p>
+ * Writes are blocking, so a client that stops reading would hold a pool thread until the socket times out.
+ * A connection whose write takes longer than {@code ledger.events.write-timeout} is therefore disconnected
+ * and the pool grows by a thread until that write returns, so the other connections keep being served.
+ * <p>
+ * Event names are {@code created}, {@code archived}, and {@code reset} when changes may have been missed
+ * and clients should reload. The first event of every connection is a {@code reset} with the current offset.
+ * Outcomes of commands the party submitted with {@code Prefer: respond-async} on this replica are pushed as
+ * {@code command} events carrying the command status.
+ */
+@Controller
+@RequestMapping("${openapi.asset.base-path:}")
+@ConditionalOnProperty(prefix = "ledger.read-model", name = "enabled", havingValue = "true")
+public class ContractEventsController implements LedgerReadModel.Listener, CommandStatuses.Listener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContractEventsController.class);
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+    // write states of a connection besides the System.nanoTime() its current write started at
+    private static final long IDLE = Long.MIN_VALUE;
+    private static final long STALLED = Long.MIN_VALUE + 1;
+
+    private record EventData(long offset, String template, String contractId) {
+    }
+
+    private final LedgerReadModel readModel;
+    private final CommandStatuses commandStatuses;
+    private final AuthenticatedPartyProvider authenticatedPartyProvider;
+    private final ObjectMapper objectMapper;
+    private final long heartbeatMillis;
+    private final int queueCapacity;
+    private final int dispatchThreads;
+    private final long writeTimeoutNanos;
+    private final int maxStalledWrites;
+    private final ThreadPoolExecutor dispatcher;
+    private final ScheduledExecutorService heartbeats;
+    private final Map<String, Set<Connection>> connectionsByParty = new ConcurrentHashMap<>();
+    // connections whose stream has not ended, including those that no longer receive events
+    private final Set<Connection> open = ConcurrentHashMap.newKeySet();
+    // guarded by this
+    private int stalledWrites;
+
+    public ContractEventsController(
+            LedgerReadModel readModel,
+            CommandStatuses commandStatuses,
+            AuthenticatedPartyProvider authenticatedPartyProvider,
+            ObjectMapper objectMapper,
+            LedgerConfig ledgerConfig,
+            MeterRegistry meterRegistry
+    ) {
+        this.readModel = readModel;
+        this.commandStatuses = commandStatuses;
+        this.authenticatedPartyProvider = authenticatedPartyProvider;
+        this.objectMapper = objectMapper;
+        this.heartbeatMillis = ledgerConfig.getEvents().getHeartbeatInterval().toMillis();
+        this.queueCapacity = ledgerConfig.getEvents().getQueueCapacity();
+        this.dispatchThreads = ledgerConfig.getEvents().getDispatchThreads();
+        this.writeTimeoutNanos = ledgerConfig.getEvents().getWriteTimeout().toNanos();
+        this.maxStalledWrites = ledgerConfig.getEvents().getMaxStalledWrites();
+        var dispatchThreadFactory = new CustomizableThreadFactory("contract-events-");
+        dispatchThreadFactory.setDaemon(true);
+        this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), dispatchThreadFactory);
+        var heartbeatThread = new CustomizableThreadFactory("contract-events-heartbeat-");
+        heartbeatThread.setDaemon(true);
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(heartbeatThread);
+        Gauge.builder("ledger.events.connections", this, ContractEventsController::connectionCount)
+                .description("Open server-sent event connections streaming contract changes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        readModel.addListener(this);
+        commandStatuses.addListener(this);
+        heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        long checkNanos = Math.max(writeTimeoutNanos / 2, TimeUnit.MILLISECONDS.toNanos(100));
+        heartbeats.scheduleAtFixedRate(this::checkWrites, checkNanos, checkNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        readModel.removeListener(this);
+        commandStatuses.removeListener(this);
+        heartbeats.shutdownNow();
+        open.forEach(Connection::complete);
+        dispatcher.shutdown();
+    }
+
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public ResponseEntity<SseEmitter> streamEvents() {
+        var party = authenticatedPartyProvider.getParty();
+        if (party.isEmpty()) {
+            logger.error("Authentication failed: no authenticated party present in the security context");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        // the connection stays open until either side closes it
+        var emitter = new SseEmitter(0L);
+        var connection = new Connection(party.get(), emitter);
+        emitter.onCompletion(connection::release);
+        emitter.onTimeout(connection::release);
+        emitter.onError(e -> connection.release());
+        open.add(connection);
+        connectionsByParty.computeIfAbsent(party.get(), p -> ConcurrentHashMap.newKeySet()).add(connection);
+        connection.offer(event("reset", new EventData(readModel.offset(), null, null)));
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                // keeps nginx from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    @Override
+    public void onChange(LedgerReadModel.ContractChange change) {
+        Set<DataWithMediaType> event = null;
+        for (String party : change.parties()) {
+            var connections = connectionsByParty.get(party);
+            if (connections == null) {
+                continue;
+            }
+            if (event == null) {
+                event = event(change.created() ? "created" : "archived",
+                        new EventData(change.offset(), change.template().getSimpleName(), change.contractId()));
+            }
+            for (Connection connection : connections) {
+                connection.offer(event);
+            }
+        }
+    }
+
+    @Override
+    public void onReset(long offset) {
+        var event = event("reset", new EventData(offset, null, null));
+        connectionsByParty.values().forEach(connections -> connections.forEach(c -> c.offer(event)));
+    }
+
+    @Override
+    public void onCompleted(String party, CommandStatus status) {
+        var connections = connectionsByParty.get(party);
+        if (connections == null) {
+            return;
+        }
+        var event = event("command", status.getCommandId(), status);
+        connections.forEach(c -> c.offer(event));
+    }
+
+    private void heartbeat() {
+        connectionsByParty.values().forEach(connections -> connections.forEach(c -> c.offer(HEARTBEAT)));
+    }
+
+    private void checkWrites() {
+        long now = System.nanoTime();
+        open.forEach(c -> c.checkWrite(now));
+    }
+
+    /**
+     * Adds a pool thread in place of one stuck writing to a stalled connection, up to maxStalledWrites.
+     * Returns whether a thread was added.
+     */
+    private synchronized boolean replaceStalledWriter() {
+        if (stalledWrites >= maxStalledWrites) {
+            return false;
+        }
+        stalledWrites++;
+        dispatcher.setMaximumPoolSize(dispatchThreads + stalledWrites);
+        dispatcher.setCorePoolSize(dispatchThreads + stalledWrites);
+        return true;
+    }
+
+    private synchronized void releaseStalledWriter() {
+        stalledWrites--;
+        dispatcher.setCorePoolSize(dispatchThreads + stalledWrites);
+        dispatcher.setMaximumPoolSize(dispatchThreads + stalledWrites);
+    }
+
+    private Set<DataWithMediaType> event(String name, EventData data) {
+        return event(name, Long.toString(data.offset()), data);
+    }
+
+    private Set<DataWithMediaType> event(String name, String id, Object data) {
+        try {
+            // built once and shared by all connections; building twice would repeat the terminating newline
+            return SseEmitter.event()
+                    .name(name)
+                    .id(id)
+                    .data(objectMapper.writeValueAsString(data))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + name + " event", e);
+        }
+    }
+
+    private int connectionCount() {
+        return connectionsByParty.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * One event stream with its bounded queue of pending events. Events are written by at most one
+     * dispatcher thread at a time, in the order they were offered. Only that thread writes to and completes
+     * the emitter, so threads offering events never wait for a blocked write.
+     */
+    private final class Connection {
+        private final String party;
+        private final SseEmitter emitter;
+        private final Queue<Set<DataWithMediaType>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        // System.nanoTime() when the current write started, IDLE, or STALLED once the watchdog gave up on it
+        private final AtomicLong writeStarted = new AtomicLong(IDLE);
+        // whether a pool thread was added for the stalled write
+        private volatile boolean replaced = false;
+        private volatile boolean completing = false;
+        private volatile boolean closed = false;
+
+        Connection(String party, SseEmitter emitter) {
+            this.party = party;
+            this.emitter = emitter;
+        }
+
+        void offer(Set<DataWithMediaType> event) {
+            if (closed) {
+                return;
+            }
+            if (queued.incrementAndGet() > queueCapacity) {
+                logger.info("Closing event stream of party {} that fell {} events behind", party, queueCapacity);
+                complete();
+                return;
+            }
+            queue.add(event);
+            schedule();
+        }
+
+        private void schedule() {
+            // only the call that finds no drain pending schedules one
+            if (pendingDrains.getAndIncrement() == 0) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    release();
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                Set<DataWithMediaType> event;
+                while (!closed && (event = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    write(event);
+                }
+                if (completing && open.remove(this)) {
+                    emitter.complete();
+                }
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void write(Set<DataWithMediaType> event) {
+            writeStarted.set(System.nanoTime());
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // the client went away; the container reports the error to the emitter
+                close();
+            } finally {
+                if (writeStarted.getAndSet(IDLE) == STALLED && replaced) {
+                    releaseStalledWriter();
+                }
+            }
+        }
+
+        /**
+         * Disconnects the client if the current write has been blocked for longer than the write timeout.
+         */
+        void checkWrite(long now) {
+            long started = writeStarted.get();
+            if (started == IDLE || started == STALLED || now - started < writeTimeoutNanos) {
+                return;
+            }
+            // the thread is added before the write is marked stalled, so that the writer sees whether it was
+            replaced = replaceStalledWriter();
+            if (!writeStarted.compareAndSet(started, STALLED)) {
+                if (replaced) {
+                    replaced = false;
+                    releaseStalledWriter();
+                }
+                return;
+            }
+            logger.info("Closing event stream of party {} that has not accepted a write for {} ms",
+                    party, TimeUnit.NANOSECONDS.toMillis(now - started));
+            complete();
+        }
+
+        /**
+         * Ends the stream once the write in progress, if any, has returned.
+         */
+        void complete() {
+            completing = true;
+            close();
+            schedule();
+        }
+
+        /**
+         * Stops queueing events for the connection.
+         */
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+            connectionsByParty.computeIfPresent(party, (p, connections) -> {
+                connections.remove(this);
+                return connections.isEmpty() ? null : connections;
+            });
+        }
+
+        /**
+         * Forgets the connection once its stream has ended.
+         */
+        void release() {
+            close();
+            open.remove(this);
+        }
+    }
+}
@@ -6,22 +6,25 @@
 
 package com.digitalasset.quickstart.service;
 
+import static com.digitalasset.quickstart.service.ServiceUtils.checkPageLimit;
+import static com.digitalasset.quickstart.service.ServiceUtils.decodePageToken;
 import static com.digitalasset.quickstart.service.ServiceUtils.ensurePresent;
+import static com.digitalasset.quickstart.service.ServiceUtils.ledgerResponse;
+import static com.digitalasset.quickstart.service.ServiceUtils.pageResponse;
 import static com.digitalasset.quickstart.service.ServiceUtils.traceServiceCallAsync;
 import static com.digitalasset.quickstart.utility.TracingUtils.tracingCtx;
 import static com.digitalasset.quickstart.utility.Utils.*;
 
 import com.daml.ledger.api.v2.CommandsOuterClass;
-import com.daml.ledger.api.v2.ValueOuterClass;
 import com.digitalasset.quickstart.api.LicensesApi;
 import com.digitalasset.quickstart.ledger.LedgerApi;
+import com.digitalasset.quickstart.ledger.LedgerApi.ResponseShape;
 import com.digitalasset.quickstart.ledger.TokenStandardProxy;
 import com.digitalasset.quickstart.repository.DamlRepository;
 import com.digitalasset.quickstart.security.AuthUtils;
 import com.digitalasset.quickstart.tokenstandard.openapi.allocation.model.DisclosedContract;
 import com.digitalasset.transcode.java.ContractId;
 import com.digitalasset.transcode.java.Party;
-import com.google.protobuf.ByteString;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 
 import java.math.BigDecimal;
@@ -63,32 +66,67 @@ public class LicenseApiImpl implements LicensesApi {
     private final DamlRepository damlRepository;
     private final TokenStandardProxy tokenStandardProxy;
     private final AuthUtils auth;
+    private final CommandStatuses commandStatuses;
+    private final BulkCommands bulkCommands;
 
     public LicenseApiImpl(
             LedgerApi ledger,
             DamlRepository damlRepository,
             TokenStandardProxy tokenStandardProxy,
-            AuthUtils authUtils
+            AuthUtils authUtils,
+            CommandStatuses commandStatuses,
+            BulkCommands bulkCommands
     ) {
         this.ledger = ledger;
         this.damlRepository = damlRepository;
         this.tokenStandardProxy = tokenStandardProxy;
         this.auth = authUtils;
+        this.commandStatuses = commandStatuses;
+        this.bulkCommands = bulkCommands;
     }
 
     /**
-     * Lists active License contracts visible to the authenticated party.
+     * Lists one page of active License contracts visible to the authenticated party,
+     * ordered by user and license number.
      */
     @Override
     @WithSpan
-    public CompletableFuture<ResponseEntity<List<License>>> listLicenses() {
-        var ctx = tracingCtx(logger, "listLicenses");
+    public CompletableFuture<ResponseEntity<List<License>>> listLicenses(Integer limit, String pageToken, Long xLedgerOffset) {
+        var ctx = tracingCtx(logger, "listLicenses",
+                "limit", limit,
+                "pageToken", pageToken,
+                "minLedgerOffset", xLedgerOffset
+        );
+        var pageLimit = checkPageLimit(limit);
+        var after = decodePageToken(pageToken, DamlRepository.LICENSES_PAGE_KEYS);
+        return auth.asAuthenticatedParty(party -> traceServiceCallAsync(ctx, () ->
+                damlRepository.awaitOffset(Optional.ofNullable(xLedgerOffset))
+                        .thenCompose(v -> damlRepository.currentOffset())
+                        .thenCompose(offset -> damlRepository.findActiveLicenses(party, pageLimit, after)
+                                .thenApply(page -> pageResponse(page.map(LicenseApiImpl::toLicenseApi), offset)))
+        ));
+    }
+
+    /**
+     * Lists the licenses visible to the authenticated party that changed after the given ledger offset,
+     * including changes to their renewal requests, and the IDs of archived licenses.
+     */
+    @Override
+    @WithSpan
+    public CompletableFuture<ResponseEntity<LicenseChanges>> listLicenseChanges(Long sinceOffset, Long xLedgerOffset) {
+        var ctx = tracingCtx(logger, "listLicenseChanges",
+                "sinceOffset", sinceOffset,
+                "minLedgerOffset", xLedgerOffset
+        );
         return auth.asAuthenticatedParty(party -> traceServiceCallAsync(ctx, () ->
-                damlRepository.findActiveLicenses(party).thenApply(res -> res.stream()
-                        .map(LicenseApiImpl::toLicenseApi)
-                        .sorted(Comparator.comparing(License::getUser).thenComparingInt(License::getLicenseNum))
-                        .toList()
-                ).thenApply(ResponseEntity::ok)
+                damlRepository.findLicenseChanges(party, sinceOffset, Optional.ofNullable(xLedgerOffset)).thenApply(found -> {
+                    var changes = found.map(LicenseApiImpl::toLicenseApi);
+                    var response = new LicenseChanges();
+                    response.setOffset(changes.offset());
+                    response.setChanged(changes.changed());
+                    response.setArchived(changes.archived());
+                    return ResponseEntity.ok(response);
+                })
         ));
     }
 
@@ -97,13 +135,14 @@ public class LicenseApiImpl implements LicensesApi {
     public CompletableFuture<ResponseEntity<Void>> renewLicense(
             String contractId,
             String commandId,
+            String prefer,
             LicenseRenewRequest request
     ) {
         var ctx = tracingCtx(logger, "renewLicense",
                 "contractId", contractId,
                 "commandId", commandId
         );
-        return auth.asAdminParty(party -> traceServiceCallAsync(ctx, () -> {
+        return auth.asAdminParty(party -> commandStatuses.run(party, commandId, prefer, () -> traceServiceCallAsync(ctx, () -> {
             var registryAdminIdFut = tokenStandardProxy.getRegistryAdminId();
             var licenseFut = damlRepository.findLicenseById(contractId);
             return registryAdminIdFut.thenCombine(licenseFut, (adminId, optLicense) -> {
@@ -119,10 +158,10 @@ public class LicenseApiImpl implements LicensesApi {
                         now.plus(Duration.parse(request.getSettleBeforeDuration())),
                         request.getDescription()
                 );
-                return ledger.exerciseAndGetResult(license.contractId, choice, commandId)
-                        .<ResponseEntity<Void>>thenApply(r -> ResponseEntity.status(HttpStatus.CREATED).build());
+                return ledger.exercise(license.contractId, choice, commandId, ResponseShape.COMPLETION_ONLY)
+                        .<ResponseEntity<Void>>thenApply(exercised -> ledgerResponse(HttpStatus.CREATED, exercised.offset()).build());
                 }).thenCompose(x -> x);
-        }));
+        })));
     }
 
 
@@ -131,13 +170,14 @@ public class LicenseApiImpl implements LicensesApi {
     public CompletableFuture<ResponseEntity<LicenseRenewalResult>> completeLicenseRenewal(
             String contractId,
             String commandId,
+            String prefer,
             CompleteLicenseRenewalRequest request
     ) {
         var ctx = tracingCtx(logger, "completeLicenseRenewal",
                 "contractId", contractId,
                 "commandId", commandId
         );
-        return auth.asAdminParty(party -> traceServiceCallAsync(ctx, () -> {
+        return auth.asAdminParty(party -> commandStatuses.run(party, commandId, prefer, () -> traceServiceCallAsync(ctx, () -> {
             var choiceContextFut = tokenStandardProxy.getAllocationTransferContext(request.getAllocationContractId());
             var renewalFut = damlRepository.findActiveLicenseRenewalRequestById(request.getRenewalRequestContractId());
             return choiceContextFut.thenCombine(renewalFut, (c, r) -> {
@@ -156,15 +196,16 @@ public class LicenseApiImpl implements LicensesApi {
                         new ContractId<>(contractId),
                         transferContext.extraArgs
                 );
-                return ledger.exerciseAndGetResult(renewal.contractId, choice, commandId, transferContext.disclosedContracts)
-                        .thenApply(newLicenseCid -> {
+                return ledger.exercise(renewal.contractId, choice, commandId, transferContext.disclosedContracts, ResponseShape.EXERCISE_RESULT)
+                        .thenApply(exercised -> {
+                            var newLicenseCid = exercised.result();
                             logger.info("newLicenseContractId: {}", newLicenseCid.getContractId);
                             LicenseRenewalResult result = new LicenseRenewalResult();
                             result.setLicenseId(newLicenseCid.getContractId);
-                            return ResponseEntity.ok(result);
+                            return ledgerResponse(HttpStatus.OK, exercised.offset()).body(result);
                         });
             }).thenCompose(x -> x);
-        }));
+        })));
     }
 
     @Override
@@ -172,13 +213,14 @@ public class LicenseApiImpl implements LicensesApi {
     public CompletableFuture<ResponseEntity<String>> expireLicense(
             String contractId,
             String commandId,
+            String prefer,
             LicenseExpireRequest licenseExpireRequest
     ) {
         var ctx = tracingCtx(logger, "expireLicense",
                 "contractId", contractId,
                 "commandId", commandId
         );
-        return auth.asAuthenticatedParty(party -> traceServiceCallAsync(ctx, () ->
+        return auth.asAuthenticatedParty(party -> commandStatuses.run(party, commandId, prefer, () -> traceServiceCallAsync(ctx, () ->
                 damlRepository.findLicenseById(contractId).thenCompose(optContract -> {
                     var license = ensurePresent(optContract, "License not found for contract %s", contractId);
                     var meta = licenseExpireRequest.getMeta().getData();
@@ -187,10 +229,32 @@ public class LicenseApiImpl implements LicensesApi {
                         meta.put("Note", "Triggered by user request");
                     }
                     License_Expire choice = new License_Expire(new Party(auth.getAppProviderPartyId()), toTokenStandardMetadata(meta));
-                    return ledger.exerciseAndGetResult(license.contractId, choice, commandId)
-                            .thenApply(result -> ResponseEntity.ok("License expired successfully"));
+                    return ledger.exercise(license.contractId, choice, commandId, ResponseShape.COMPLETION_ONLY)
+                            .thenApply(exercised -> ledgerResponse(HttpStatus.OK, exercised.offset()).body("License expired successfully"));
                 })
-        ));
+        )));
+    }
+
+    /**
+     * Expires many licenses with as few transactions as possible, as the provider.
+     */
+    @Override
+    @WithSpan
+    public CompletableFuture<ResponseEntity<BulkCommandResult>> expireLicenses(
+            String commandId,
+            BulkLicenseExpireRequest request
+    ) {
+        BulkCommands.checkContractIds(request.getContractIds());
+        BulkCommands.requireProperty(request.getMeta(), "meta");
+        var ctx = tracingCtx(logger, "expireLicenses",
+                "commandId", commandId,
+                "count", request.getContractIds().size()
+        );
+        return auth.asAdminParty(party -> traceServiceCallAsync(ctx, () -> {
+            License_Expire choice = new License_Expire(new Party(auth.getAppProviderPartyId()), toTokenStandardMetadata(request.getMeta().getData()));
+            return bulkCommands.run(commandId, request.getContractIds(),
+                    contractId -> new LedgerApi.Exercise<>(new ContractId<quickstart_licensing.licensing.license.License>(contractId), choice));
+        }));
     }
 
     private static License toLicenseApi(DamlRepository.LicenseWithRenewalRequests licenseContract) {
@@ -246,7 +310,7 @@ public class LicenseApiImpl implements LicensesApi {
             Object contextData) {
         var disclosures = disclosedContracts
                 .stream()
-                .map(this::toLedgerApiDisclosedContract)
+                .map(tokenStandardProxy::toLedgerApiDisclosedContract)
                 .toList();
         Map<String, AnyValue> choiceContextMap = disclosures
                 .stream()
@@ -268,34 +332,6 @@ public class LicenseApiImpl implements LicensesApi {
         );
     }
 
-    private CommandsOuterClass.DisclosedContract toLedgerApiDisclosedContract(DisclosedContract dc) {
-        ValueOuterClass.Identifier templateId = parseTemplateIdentifier(dc.getTemplateId());
-        byte[] blob = Base64.getDecoder().decode(dc.getCreatedEventBlob());
-
-        return CommandsOuterClass.DisclosedContract.newBuilder().setTemplateId(templateId).setContractId(dc.getContractId())
-                .setCreatedEventBlob(ByteString.copyFrom(blob)).build();
-    }
-
-    private static ValueOuterClass.Identifier parseTemplateIdentifier(String templateIdStr) {
-        String[] parts = templateIdStr.split(":");
-        if (parts.length < 3) {
-            throw new IllegalArgumentException("Invalid templateId format: " + templateIdStr);
-        }
-        String packageId = parts[0];
-        String moduleName = parts[1];
-        StringBuilder entityNameBuilder = new StringBuilder();
-        for (int i = 2; i < parts.length; i++) {
-            if (i > 2) {
-                entityNameBuilder.append(":");
-            }
-            entityNameBuilder.append(parts[i]);
-        }
-        String entityName = entityNameBuilder.toString();
-
-        return ValueOuterClass.Identifier.newBuilder().setPackageId(packageId).setModuleName(moduleName)
-                .setEntityName(entityName).build();
-    }
-
     private Map<String, AnyValue> mergeChoiceContexts(Object originalContextData, Map<String, AnyValue> additionalContextData) {
         Map<String, AnyValue> mergedContextData = new HashMap<>(convertChoiceContextData(originalContextData));
         additionalContextData.forEach(mergedContextData::put);
@@ -5,11 +5,16 @@ package com.digitalasset.quickstart.service;
 
 import com.digitalasset.quickstart.api.LicenseRenewalRequestsApi;
 import com.digitalasset.quickstart.ledger.LedgerApi;
+import com.digitalasset.quickstart.ledger.LedgerApi.ResponseShape;
 import com.digitalasset.quickstart.repository.DamlRepository;
 import com.digitalasset.quickstart.security.AuthUtils;
+import com.digitalasset.transcode.java.ContractId;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
+import org.openapitools.model.BulkCommandResult;
+import org.openapitools.model.BulkContractIdsRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -22,6 +27,7 @@ import java.util.*;
 import java.util.concurrent.CompletableFuture;
 
 import static com.digitalasset.quickstart.service.ServiceUtils.ensurePresent;
+import static com.digitalasset.quickstart.service.ServiceUtils.ledgerResponse;
 import static com.digitalasset.quickstart.service.ServiceUtils.traceServiceCallAsync;
 import static com.digitalasset.quickstart.utility.TracingUtils.tracingCtx;
 
@@ -37,11 +43,13 @@ public class LicenseRenewalRequestsApiImpl implements LicenseRenewalRequestsApi
     private final LedgerApi ledger;
     private final DamlRepository damlRepository;
     private final AuthUtils auth;
+    private final BulkCommands bulkCommands;
 
-    public LicenseRenewalRequestsApiImpl(LedgerApi ledger, DamlRepository damlRepository, AuthUtils authUtils) {
+    public LicenseRenewalRequestsApiImpl(LedgerApi ledger, DamlRepository damlRepository, AuthUtils authUtils, BulkCommands bulkCommands) {
         this.ledger = ledger;
         this.damlRepository = damlRepository;
         this.auth = authUtils;
+        this.bulkCommands = bulkCommands;
     }
 
     @Override
@@ -57,9 +65,32 @@ public class LicenseRenewalRequestsApiImpl implements LicenseRenewalRequestsApi
                     var choice = new AllocationRequest.AllocationRequest_Withdraw(
                             new ExtraArgs(new ChoiceContext(Map.of()), new Metadata(Map.of()))
                     );
-                    return ledger.exerciseAndGetResult(allocationRequest.contractId, choice, commandId)
-                            .thenApply(result -> ResponseEntity.noContent().build());
+                    return ledger.exercise(allocationRequest.contractId, choice, commandId, ResponseShape.COMPLETION_ONLY)
+                            .thenApply(exercised -> ledgerResponse(HttpStatus.NO_CONTENT, exercised.offset()).build());
                 })
         ));
     }
+
+    /**
+     * Withdraws many allocation requests with as few transactions as possible.
+     */
+    @Override
+    @WithSpan
+    public CompletableFuture<ResponseEntity<BulkCommandResult>> withdrawLicenseRenewalRequests(
+            String commandId,
+            BulkContractIdsRequest request
+    ) {
+        BulkCommands.checkContractIds(request.getContractIds());
+        var ctx = tracingCtx(logger, "withdrawLicenseRenewalRequests",
+                "commandId", commandId,
+                "count", request.getContractIds().size()
+        );
+        return auth.asAdminParty(party -> traceServiceCallAsync(ctx, () -> {
+            var choice = new AllocationRequest.AllocationRequest_Withdraw(
+                    new ExtraArgs(new ChoiceContext(Map.of()), new Metadata(Map.of()))
+            );
+            return bulkCommands.run(commandId, request.getContractIds(),
+                    contractId -> new LedgerApi.Exercise<>(new ContractId<AllocationRequest>(contractId), choice));
+        }));
+    }
 }
@@ -1,19 +1,91 @@
 package com.digitalasset.quickstart.service;
 
+import com.digitalasset.quickstart.repository.Page;
+import com.digitalasset.quickstart.repository.PageToken;
 import com.digitalasset.quickstart.utility.TracingUtils;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 class ServiceUtils {
 
+    static final String NEXT_PAGE_TOKEN_HEADER = "X-Next-Page-Token";
+    static final String LEDGER_OFFSET_HEADER = "X-Ledger-Offset";
+
+    // bounds of the limit query parameter of paginated listings, as declared in the OpenAPI spec
+    static final int MIN_PAGE_LIMIT = 1;
+    static final int MAX_PAGE_LIMIT = 1000;
+    static final int DEFAULT_PAGE_LIMIT = 100;
+
     static <T> T ensurePresent(Optional<T> opt, String message, Object... args) {
         return opt.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, String.format(message, args)));
     }
 
+    /**
+     * Checks the optional limit query parameter of a paginated listing. The bounds in the OpenAPI spec are not
+     * enforced by the generated interfaces, so every listing checks them here before querying.
+     *
+     * @throws ResponseStatusException with status 400 if the limit is outside 1..1000
+     */
+    static int checkPageLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_LIMIT;
+        }
+        if (limit < MIN_PAGE_LIMIT || limit > MAX_PAGE_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("limit must be between %d and %d", MIN_PAGE_LIMIT, MAX_PAGE_LIMIT));
+        }
+        return limit;
+    }
+
+    /**
+     * Decodes the optional pageToken query parameter of a paginated listing.
+     *
+     * @throws ResponseStatusException with status 400 if the token is malformed
+     */
+    static Optional<PageToken> decodePageToken(String pageToken, List<PageToken.KeyType> keyTypes) {
+        if (pageToken == null || pageToken.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(PageToken.decode(pageToken, keyTypes));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page token", e);
+        }
+    }
+
+    /**
+     * Builds a 200 response for one page, advertising the next page in the X-Next-Page-Token header.
+     */
+    static <T> ResponseEntity<List<T>> pageResponse(Page<T> page) {
+        var response = ResponseEntity.ok();
+        page.next().ifPresent(next -> response.header(NEXT_PAGE_TOKEN_HEADER, next.encode()));
+        return response.body(page.items());
+    }
+
+    /**
+     * Builds a 200 response for one page that also reports, in the X-Ledger-Offset header, the ledger offset
+     * the listing reflects at least. Clients ask the matching changes endpoint for changes after it.
+     */
+    static <T> ResponseEntity<List<T>> pageResponse(Page<T> page, long offset) {
+        var response = ResponseEntity.ok().header(LEDGER_OFFSET_HEADER, Long.toString(offset));
+        page.next().ifPresent(next -> response.header(NEXT_PAGE_TOKEN_HEADER, next.encode()));
+        return response.body(page.items());
+    }
+
+    /**
+     * Starts a response to a ledger command, reporting the offset of its transaction in the X-Ledger-Offset
+     * header. Clients pass the offset back on later reads so that those reflect the command.
+     */
+    static ResponseEntity.BodyBuilder ledgerResponse(HttpStatus status, long offset) {
+        return ResponseEntity.status(status).header(LEDGER_OFFSET_HEADER, Long.toString(offset));
+    }
+
     /**
      * Wraps a CompletableFuture with tracing, ensuring that any exceptions are properly propagated.
      * To be used exclusively inside the service API implementations.
@@ -0,0 +1,37 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.utility;
+
+import com.digitalasset.transcode.java.Template;
+import com.digitalasset.transcode.java.Utils;
+import com.digitalasset.transcode.schema.Identifier;
+
+/**
+ * Template identifiers of generated Daml classes, looked up by reflection once per class instead of on
+ * every query or command.
+ */
+public final class TemplateIds {
+
+    private record Ids(Identifier identifier, String qualifiedName) {
+    }
+
+    private static final ClassValue<Ids> IDS = new ClassValue<>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Ids computeValue(Class<?> type) {
+            Identifier identifier = Utils.getTemplateIdByClass((Class<? extends Template>) type);
+            return new Ids(identifier, identifier.qualifiedName());
+        }
+    };
+
+    private TemplateIds() {}
+
+    public static Identifier of(Class<? extends Template> clazz) {
+        return IDS.get(clazz).identifier();
+    }
+
+    public static String qualifiedName(Class<? extends Template> clazz) {
+        return IDS.get(clazz).qualifiedName();
+    }
+}
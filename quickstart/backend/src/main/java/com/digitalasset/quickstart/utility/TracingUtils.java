@@ -10,6 +10,8 @@ import io.opentelemetry.api.trace.StatusCode;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Supplier;
 
 import jakarta.validation.constraints.NotNull;
@@ -281,6 +283,31 @@ public final class TracingUtils {
         ).thenCompose(f -> f);
     }
 
+    /**
+     * Runs a blocking body on the given executor and traces it. A rejection by the executor
+     * is reported through the returned future instead of being thrown to the caller.
+     *
+     * @param ctx      the tracing context
+     * @param executor the executor that runs the blocking body
+     * @param body     the blocking body
+     * @param <T>      the type of the result
+     * @return a traced CompletableFuture completed on the given executor
+     */
+    public static <T> CompletableFuture<T> runAndTraceAsync(
+            TracingUtils.TracingContext ctx,
+            Executor executor,
+            Supplier<T> body) {
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> _trace(ctx, false, () -> CompletableFuture.completedFuture(body.get())),
+                    executor
+            ).thenCompose(f -> f);
+        } catch (RejectedExecutionException e) {
+            logError(ctx.logger(), ctx.message() + " rejected", ctx.attrs(), e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     private static <T> CompletableFuture<T> _trace(
             TracingUtils.TracingContext ctx,
             boolean startEvent,
@@ -0,0 +1,104 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.ledger;
+
+import com.digitalasset.quickstart.config.LedgerConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContractSerializerTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ContractSerializer serializer = new ContractSerializer(new LedgerConfig(), meterRegistry);
+    private final List<String> targets = new ArrayList<>();
+
+    @Test
+    void runsCommandsOnTheSameContractOneAfterTheOther() {
+        var first = new CompletableFuture<String>();
+        serializer.submit("c1", target -> {
+            targets.add(target);
+            return first;
+        }, r -> Optional.empty());
+        var second = serializer.submit("c1", this::run, r -> Optional.empty());
+
+        assertEquals(List.of("c1"), targets);
+        assertEquals(2, serialized());
+
+        first.complete("done");
+        assertEquals("c1", second.join());
+        assertEquals(List.of("c1", "c1"), targets);
+        assertEquals(0, serialized());
+    }
+
+    @Test
+    void runsLaterCommandsAgainstTheSuccessor() {
+        var first = new CompletableFuture<String>();
+        serializer.submit("c1", target -> first, r -> Optional.of("c2"));
+        var second = serializer.submit("c1", this::run, r -> Optional.of("c3"));
+
+        first.complete("done");
+
+        assertEquals("c2", second.join());
+        assertEquals("c3", serializer.resolve("c1"));
+        assertEquals("c3", serializer.resolve("c2"));
+        assertEquals("c3", serializer.resolve("c3"));
+    }
+
+    @Test
+    void redirectsCommandsSubmittedAfterTheLaneDrained() {
+        serializer.submit("c1", this::run, r -> Optional.of("c2")).join();
+
+        assertEquals("c2", serializer.submit("c1", this::run, r -> Optional.empty()).join());
+    }
+
+    @Test
+    void doesNotDelayCommandsOnOtherContracts() {
+        serializer.submit("c1", target -> new CompletableFuture<String>(), r -> Optional.empty());
+
+        assertEquals("other", serializer.submit("other", this::run, r -> Optional.empty()).join());
+    }
+
+    @Test
+    void runsTheNextCommandAgainstTheSameContractAfterAFailure() {
+        var first = new CompletableFuture<String>();
+        var failed = serializer.submit("c1", target -> first, r -> Optional.of("c2"));
+        var second = serializer.submit("c1", this::run, r -> Optional.empty());
+
+        first.completeExceptionally(new IllegalStateException("rejected"));
+
+        var ex = assertThrows(CompletionException.class, failed::join);
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+        assertEquals("c1", second.join());
+        assertEquals("c1", serializer.resolve("c1"));
+    }
+
+    @Test
+    void reportsCommandsThatThrowAsFailed() {
+        var failed = serializer.submit("c1", target -> {
+            throw new IllegalArgumentException("bad command");
+        }, (String r) -> Optional.empty());
+
+        var ex = assertThrows(CompletionException.class, failed::join);
+        assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+        assertEquals(0, serialized());
+    }
+
+    private CompletableFuture<String> run(String target) {
+        targets.add(target);
+        return CompletableFuture.completedFuture(target);
+    }
+
+    private double serialized() {
+        return meterRegistry.get("ledger.commands.serialized").gauge().value();
+    }
+}
@@ -0,0 +1,150 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.ledger;
+
+import com.digitalasset.quickstart.config.LedgerConfig;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubmissionLimiterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void queuesSubmissionsBeyondTheLimitAndAdmitsThemInArrivalOrder() {
+        var limiter = limiter(2, 10, Duration.ofMinutes(1));
+        List<String> started = new ArrayList<>();
+        List<CompletableFuture<String>> submissions = new ArrayList<>();
+        for (String name : List.of("a", "b", "c", "d")) {
+            var submission = new CompletableFuture<String>();
+            submissions.add(submission);
+            limiter.run(() -> {
+                started.add(name);
+                return submission;
+            }, false);
+        }
+
+        assertEquals(List.of("a", "b"), started);
+        assertEquals(2, gauge("ledger.limiter.in-flight"));
+        assertEquals(2, gauge("ledger.limiter.queued"));
+
+        submissions.get(1).complete("b");
+        assertEquals(List.of("a", "b", "c"), started);
+        submissions.get(0).complete("a");
+        assertEquals(List.of("a", "b", "c", "d"), started);
+        assertEquals(0, gauge("ledger.limiter.queued"));
+    }
+
+    @Test
+    void passesTheOutcomeOfTheSubmissionThrough() {
+        var limiter = limiter(2, 10, Duration.ofMinutes(1));
+
+        assertEquals("done", limiter.run(() -> CompletableFuture.completedFuture("done"), true).join());
+        var failure = new IllegalStateException("failed");
+        var ex = assertThrows(CompletionException.class,
+                () -> limiter.run(() -> CompletableFuture.failedFuture(failure), true).join());
+        assertSame(failure, ex.getCause());
+        assertEquals(0, gauge("ledger.limiter.in-flight"));
+    }
+
+    @Test
+    void rejectsSubmissionsWhenTheQueueIsFull() {
+        var limiter = limiter(1, 1, Duration.ofMinutes(1));
+        limiter.run(CompletableFuture::new, false);
+        limiter.run(CompletableFuture::new, false);
+
+        var rejected = limiter.run(() -> CompletableFuture.completedFuture("c"), false);
+
+        var ex = assertThrows(CompletionException.class, rejected::join);
+        var overloaded = assertInstanceOf(LedgerOverloadedException.class, ex.getCause());
+        assertEquals(429, overloaded.getStatusCode().value());
+        assertNotNull(overloaded.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void rejectsSubmissionsThatWaitedLongerThanTheQueueTimeout() {
+        var limiter = limiter(1, 10, Duration.ofMillis(20));
+        var first = new CompletableFuture<String>();
+        limiter.run(() -> first, false);
+        List<String> started = new ArrayList<>();
+
+        var queued = limiter.run(() -> {
+            started.add("b");
+            return CompletableFuture.completedFuture("b");
+        }, false);
+
+        var ex = assertThrows(CompletionException.class, queued::join);
+        var overloaded = assertInstanceOf(LedgerOverloadedException.class, ex.getCause());
+        assertEquals(503, overloaded.getStatusCode().value());
+        first.complete("a");
+        assertEquals(List.of(), started);
+        assertEquals(0, gauge("ledger.limiter.in-flight"));
+    }
+
+    @Test
+    void backsOffOnOverloadErrors() {
+        var limiter = limiter(10, 10, Duration.ofMinutes(1));
+
+        limiter.run(() -> CompletableFuture.failedFuture(Status.UNAVAILABLE.asRuntimeException()), false)
+                .exceptionally(e -> null)
+                .join();
+
+        assertEquals(9, gauge("ledger.limiter.limit"));
+    }
+
+    @Test
+    void doesNotBackOffBelowTheMinimumLimit() {
+        var limiter = limiter(4, 10, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 20; i++) {
+            limiter.run(() -> CompletableFuture.failedFuture(Status.RESOURCE_EXHAUSTED.asRuntimeException()), false)
+                    .exceptionally(e -> null)
+                    .join();
+        }
+
+        assertEquals(4, gauge("ledger.limiter.limit"));
+    }
+
+    @Test
+    void ignoresTheLatencyOfRejectedCommands() {
+        var limiter = limiter(10, 10, Duration.ofMinutes(1));
+        // keep the limit in use so that latency samples could move it
+        for (int i = 0; i < 8; i++) {
+            limiter.run(CompletableFuture::new, false);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            limiter.run(() -> CompletableFuture.failedFuture(Status.NOT_FOUND.asRuntimeException()), true)
+                    .exceptionally(e -> null)
+                    .join();
+        }
+
+        assertEquals(10, gauge("ledger.limiter.limit"));
+    }
+
+    private SubmissionLimiter limiter(int initialLimit, int maxQueue, Duration queueTimeout) {
+        var config = new LedgerConfig.Limiter();
+        config.setInitialLimit(initialLimit);
+        config.setMinLimit(Math.min(4, initialLimit));
+        config.setMaxLimit(100);
+        config.setMaxQueue(maxQueue);
+        config.setQueueTimeout(queueTimeout);
+        return new SubmissionLimiter(config, meterRegistry);
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+}
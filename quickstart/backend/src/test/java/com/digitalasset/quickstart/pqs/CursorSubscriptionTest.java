@@ -0,0 +1,337 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.pqs;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Covers the Reactive Streams rules that {@link CursorSubscription} relies on, noted by their numbers in the
+ * specification, and that the cursor is opened on demand and always closed.
+ */
+class CursorSubscriptionTest {
+
+    // runs drains when the test says so, like a pool thread that has not picked them up yet
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final Executor queued = tasks::add;
+    private final Executor direct = Runnable::run;
+
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger closed = new AtomicInteger();
+
+    @Test
+    void opensTheCursorOnlyOnFirstDemand() {
+        var subscriber = new RecordingSubscriber<Integer>();
+        subscribe(rows(3), direct, subscriber);
+
+        assertEquals(0, opened.get());
+
+        subscriber.request(1);
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    void emitsNoMoreThanRequested() {
+        // rule 1.1
+        var subscriber = new RecordingSubscriber<Integer>();
+        subscribe(rows(10), direct, subscriber);
+
+        subscriber.request(3);
+        assertEquals(List.of(0, 1, 2), subscriber.items);
+
+        subscriber.request(2);
+        assertEquals(List.of(0, 1, 2, 3, 4), subscriber.items);
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    void completesAndClosesTheCursorAfterTheLastRow() {
+        // rules 1.4 and 1.6
+        var subscriber = new RecordingSubscriber<Integer>();
+        subscribe(rows(3), direct, subscriber);
+
+        subscriber.request(Long.MAX_VALUE);
+
+        assertEquals(List.of(0, 1, 2), subscriber.items);
+        assertTrue(subscriber.completed);
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void completesAnEmptyCursorOnFirstDemand() {
+        // rule 1.4
+        var subscriber = new RecordingSubscriber<Integer>();
+        subscribe(rows(0), direct, subscriber);
+
+        subscriber.request(1);
+
+        assertTrue(subscriber.completed);
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void acceptsRequestsFromWithinOnNextWithoutRecursing() {
+        // rule 3.3
+        var depth = new AtomicInteger();
+        var maxDepth = new AtomicInteger();
+        var subscriber = new RecordingSubscriber<Integer>(s -> {
+            maxDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+            s.request(1);
+            depth.decrementAndGet();
+        });
+        subscribe(rows(100), direct, subscriber);
+
+        subscriber.request(1);
+
+        assertEquals(100, subscriber.items.size());
+        assertTrue(subscriber.completed);
+        assertEquals(1, maxDepth.get());
+    }
+
+    @Test
+    void signalsANonPositiveRequestAsAnError() {
+        // rule 3.9
+        var subscriber = new RecordingSubscriber<Integer>();
+        subscribe(rows(3), direct, subscriber);
+
+        subscriber.request(0);
+
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+        assertTrue(subscriber.items.isEmpty());
+        assertEquals(closed.get(), opened.get());
+    }
+
+    @Test
+    void signalsANegativeRequestMadeWithinOnNextAfterThatSignal() {
+        // rule 3.9
+        var subscriber = new RecordingSubscriber<Integer>(s -> s.request(-1));
+        subscribe(rows(3), direct, subscriber);
+
+        subscriber.request(2);
+
+        assertEquals(List.of(0), subscriber.items);
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void capsAccumulatedDemandAtLongMaxValue() {
+        // rule 3.17
+        var subscriber = new RecordingSubscriber<Integer>();
+        subscribe(rows(5), queued, subscriber);
+
+        subscriber.request(Long.MAX_VALUE);
+        subscriber.request(Long.MAX_VALUE);
+        runTasks();
+
+        assertEquals(5, subscriber.items.size());
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    void stopsEmittingAndClosesTheCursorOnCancel() {
+        // rules 3.5 and 3.13
+        var subscriber = new RecordingSubscriber<Integer>(s -> {
+            if (s.items.size() == 2) {
+                s.subscription.cancel();
+            }
+        });
+        subscribe(rows(10), direct, subscriber);
+
+        subscriber.request(Long.MAX_VALUE);
+
+        assertEquals(List.of(0, 1), subscriber.items);
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void closesTheCursorWhenCancelledWithoutDemand() {
+        // rule 3.13
+        var subscriber = new RecordingSubscriber<Integer>();
+        subscribe(rows(10), direct, subscriber);
+        subscriber.request(2);
+
+        subscriber.subscription.cancel();
+        subscriber.request(5);
+
+        assertEquals(List.of(0, 1), subscriber.items);
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void ignoresCancelAfterCompletion() {
+        // rule 3.7
+        var subscriber = new RecordingSubscriber<Integer>();
+        subscribe(rows(1), direct, subscriber);
+        subscriber.request(5);
+
+        subscriber.subscription.cancel();
+        subscriber.subscription.cancel();
+
+        assertTrue(subscriber.completed);
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void closesTheCursorInlineWhenTheExecutorRejectsTheCancellation() {
+        var rejectAfterFirst = new AtomicInteger();
+        Executor executor = task -> {
+            if (rejectAfterFirst.getAndIncrement() > 0) {
+                throw new RejectedExecutionException("shut down");
+            }
+            task.run();
+        };
+        var subscriber = new RecordingSubscriber<Integer>();
+        subscribe(rows(10), executor, subscriber);
+        subscriber.request(1);
+
+        subscriber.subscription.cancel();
+
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void signalsARejectedDrainAsAnError() {
+        Executor executor = task -> {
+            throw new RejectedExecutionException("shut down");
+        };
+        var subscriber = new RecordingSubscriber<Integer>();
+        subscribe(rows(10), executor, subscriber);
+
+        subscriber.request(1);
+
+        assertInstanceOf(RejectedExecutionException.class, subscriber.error);
+        assertEquals(0, opened.get());
+    }
+
+    @Test
+    void signalsCursorFailuresAsAnErrorAndClosesTheCursor() {
+        // rule 1.4
+        var subscriber = new RecordingSubscriber<Integer>();
+        Supplier<Stream<Integer>> failing = () -> track(IntStream.range(0, 10).boxed().map(i -> {
+            if (i == 2) {
+                throw new IllegalStateException("connection lost");
+            }
+            return i;
+        }));
+        subscribe(failing, direct, subscriber);
+
+        subscriber.request(5);
+
+        assertEquals(List.of(0, 1), subscriber.items);
+        assertInstanceOf(IllegalStateException.class, subscriber.error);
+        assertFalse(subscriber.completed);
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void signalsAFailureToOpenTheCursorAsAnError() {
+        var subscriber = new RecordingSubscriber<Integer>();
+        subscribe(() -> {
+            throw new IllegalStateException("no connection");
+        }, direct, subscriber);
+
+        subscriber.request(1);
+
+        assertInstanceOf(IllegalStateException.class, subscriber.error);
+    }
+
+    @Test
+    void signalsTerminalEventsOnlyOnce() {
+        // rule 1.7
+        var subscriber = new RecordingSubscriber<Integer>();
+        subscribe(rows(2), queued, subscriber);
+
+        subscriber.request(5);
+        subscriber.request(0);
+        runTasks();
+        subscriber.subscription.cancel();
+        runTasks();
+
+        assertEquals(1, subscriber.terminalSignals);
+    }
+
+    private Supplier<Stream<Integer>> rows(int count) {
+        return () -> track(IntStream.range(0, count).boxed());
+    }
+
+    private Stream<Integer> track(Stream<Integer> stream) {
+        opened.incrementAndGet();
+        return stream.onClose(closed::incrementAndGet);
+    }
+
+    private void subscribe(Supplier<Stream<Integer>> stream, Executor executor, RecordingSubscriber<Integer> subscriber) {
+        new CursorSubscription<>(subscriber, stream, executor).start();
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static class RecordingSubscriber<T> implements Flow.Subscriber<T> {
+        private final Consumer<RecordingSubscriber<T>> onItem;
+        final List<T> items = new ArrayList<>();
+        Flow.Subscription subscription;
+        boolean completed;
+        Throwable error;
+        int terminalSignals;
+
+        RecordingSubscriber() {
+            this(s -> {
+            });
+        }
+
+        RecordingSubscriber(Consumer<RecordingSubscriber<T>> onItem) {
+            this.onItem = onItem;
+        }
+
+        void request(long n) {
+            subscription.request(n);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T item) {
+            assertEquals(0, terminalSignals, "onNext after a terminal signal");
+            items.add(item);
+            onItem.accept(this);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminalSignals++;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminalSignals++;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.repository;
+
+import com.digitalasset.quickstart.pqs.Contract;
+import com.digitalasset.quickstart.pqs.Pqs;
+import com.digitalasset.transcode.java.ContractId;
+import com.digitalasset.transcode.java.Template;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ContractBatcherTest {
+
+    private final Pqs pqs = mock(Pqs.class);
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    // flushes scheduled by the batcher, run by the tests in place of the scheduler
+    private final List<Runnable> flushes = new ArrayList<>();
+    private final CompletableFuture<List<Contract<Template>>> query = new CompletableFuture<>();
+
+    @BeforeEach
+    void setUp() {
+        when(scheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            flushes.add(invocation.getArgument(0));
+            return null;
+        });
+        when(pqs.contractsByIds(eq(Template.class), anyCollection())).thenReturn(query);
+    }
+
+    @Test
+    void resolvesLookupsWithinTheWindowWithOneQuery() {
+        var batcher = batcher(10);
+        var a = batcher.load("a");
+        var b = batcher.load("b");
+        var a2 = batcher.load("a");
+
+        verify(pqs, never()).contractsByIds(any(), anyCollection());
+        assertEquals(1, flushes.size());
+
+        flushes.get(0).run();
+        query.complete(List.of(contract("a")));
+
+        assertEquals(Set.of("a", "b"), Set.copyOf(queriedIds()));
+        assertEquals("a", a.join().orElseThrow().contractId.getContractId);
+        assertEquals("a", a2.join().orElseThrow().contractId.getContractId);
+        assertEquals(Optional.empty(), b.join());
+    }
+
+    @Test
+    void dispatchesAFullBatchRightAway() {
+        var batcher = batcher(2);
+        batcher.load("a");
+        batcher.load("b");
+
+        assertEquals(Set.of("a", "b"), Set.copyOf(queriedIds()));
+
+        // the window scheduled for the batch finds nothing left to flush
+        flushes.forEach(Runnable::run);
+        verify(pqs, times(1)).contractsByIds(any(), anyCollection());
+    }
+
+    @Test
+    void startsANewWindowAfterAFlush() {
+        var batcher = batcher(10);
+        batcher.load("a");
+        flushes.get(0).run();
+        batcher.load("b");
+
+        assertEquals(2, flushes.size());
+    }
+
+    @Test
+    void failsAllLookupsOfAFailedQuery() {
+        var batcher = batcher(10);
+        var a = batcher.load("a");
+        var b = batcher.load("b");
+        flushes.get(0).run();
+
+        query.completeExceptionally(new IllegalStateException("PQS unavailable"));
+
+        assertThrows(CompletionException.class, a::join);
+        assertThrows(CompletionException.class, b::join);
+    }
+
+    private ContractBatcher<Template> batcher(int maxBatchSize) {
+        return new ContractBatcher<>(Template.class, pqs, scheduler, Duration.ofMillis(5), maxBatchSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<String> queriedIds() {
+        ArgumentCaptor<Collection<String>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(pqs).contractsByIds(eq(Template.class), ids.capture());
+        return ids.getValue();
+    }
+
+    private static Contract<Template> contract(String contractId) {
+        return new Contract<>(new ContractId<>(contractId), null);
+    }
+}
@@ -0,0 +1,78 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static com.digitalasset.quickstart.repository.PageToken.KeyType.NUMBER;
+import static com.digitalasset.quickstart.repository.PageToken.KeyType.TEXT;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageTokenTest {
+
+    private static final List<PageToken.KeyType> LICENSE_KEYS = List.of(TEXT, NUMBER, TEXT);
+
+    @Test
+    void decodesWhatItEncodes() {
+        var token = PageToken.of("alice::1220abc", "42", "00cafe");
+
+        var decoded = PageToken.decode(token.encode(), LICENSE_KEYS);
+
+        assertEquals(token, decoded);
+        assertEquals("alice::1220abc", decoded.key(0));
+        assertEquals(42L, decoded.longKey(1));
+        assertEquals("00cafe", decoded.key(2));
+    }
+
+    @Test
+    void keepsEmptyKeys() {
+        var token = PageToken.of("", "7", "");
+
+        assertEquals(token, PageToken.decode(token.encode(), LICENSE_KEYS));
+    }
+
+    @Test
+    void encodesUrlSafelyWithoutPadding() {
+        var encoded = PageToken.of("party?with/odd+chars", "1", "x").encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+    }
+
+    @Test
+    void rejectsTokensWithTheWrongNumberOfKeys() {
+        var token = PageToken.of("alice", "42").encode();
+
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode(token, LICENSE_KEYS));
+    }
+
+    @Test
+    void rejectsNonNumericNumberKeys() {
+        var token = PageToken.of("alice", "forty-two", "00cafe").encode();
+
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode(token, LICENSE_KEYS));
+    }
+
+    @Test
+    void acceptsAnyTextInTextKeys() {
+        var token = PageToken.of("42").encode();
+
+        assertEquals("42", PageToken.decode(token, List.of(TEXT)).key(0));
+    }
+
+    @Test
+    void rejectsTokensThatAreNotBase64() {
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode("not a token!", LICENSE_KEYS));
+    }
+
+    @Test
+    void rejectsTokensNotProducedByEncode() {
+        var token = Base64.getUrlEncoder().withoutPadding().encodeToString("just one key".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode(token, LICENSE_KEYS));
+    }
+}
@@ -0,0 +1,69 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkCommandsTest {
+
+    @Test
+    void derivesTransactionCommandIdsFromTheContractsRegardlessOfOrder() {
+        assertEquals(
+                BulkCommands.transactionCommandId("cmd", List.of("a", "b", "c")),
+                BulkCommands.transactionCommandId("cmd", List.of("c", "a", "b")));
+    }
+
+    @Test
+    void givesTransactionsWithDifferentContractsDifferentCommandIds() {
+        var ab = BulkCommands.transactionCommandId("cmd", List.of("a", "b"));
+
+        assertNotEquals(ab, BulkCommands.transactionCommandId("cmd", List.of("a", "c")));
+        assertNotEquals(ab, BulkCommands.transactionCommandId("cmd", List.of("a")));
+        assertNotEquals(ab, BulkCommands.transactionCommandId("cmd", List.of("ab")));
+        assertNotEquals(ab, BulkCommands.transactionCommandId("other", List.of("a", "b")));
+    }
+
+    @Test
+    void prefixesTransactionCommandIdsWithTheRequestCommandId() {
+        var id = BulkCommands.transactionCommandId("cmd", List.of("a"));
+
+        assertTrue(id.matches("cmd-[0-9a-f]{32}"), id);
+    }
+
+    @Test
+    void acceptsUpToTheMaximumNumberOfContractIds() {
+        BulkCommands.checkContractIds(contractIds(BulkCommands.MAX_CONTRACT_IDS));
+    }
+
+    @Test
+    void rejectsMissingEmptyOrTooManyContractIds() {
+        assertBadRequest(() -> BulkCommands.checkContractIds(null));
+        assertBadRequest(() -> BulkCommands.checkContractIds(List.of()));
+        assertBadRequest(() -> BulkCommands.checkContractIds(contractIds(BulkCommands.MAX_CONTRACT_IDS + 1)));
+        assertBadRequest(() -> BulkCommands.checkContractIds(Collections.singletonList(null)));
+    }
+
+    @Test
+    void rejectsMissingRequiredProperties() {
+        assertBadRequest(() -> BulkCommands.requireProperty(null, "meta"));
+        assertEquals("meta", BulkCommands.requireProperty("meta", "meta"));
+    }
+
+    private static List<String> contractIds(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "c" + i).toList();
+    }
+
+    private static void assertBadRequest(Runnable check) {
+        var ex = assertThrows(ResponseStatusException.class, check::run);
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+}
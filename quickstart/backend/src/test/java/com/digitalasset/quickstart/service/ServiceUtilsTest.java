@@ -0,0 +1,45 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+package com.digitalasset.quickstart.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceUtilsTest {
+
+    @Test
+    void acceptsLimitsWithinBounds() {
+        assertEquals(1, ServiceUtils.checkPageLimit(1));
+        assertEquals(1000, ServiceUtils.checkPageLimit(1000));
+    }
+
+    @Test
+    void defaultsAMissingLimit() {
+        assertEquals(100, ServiceUtils.checkPageLimit(null));
+    }
+
+    @Test
+    void rejectsAZeroLimit() {
+        assertBadRequest(0);
+    }
+
+    @Test
+    void rejectsANegativeLimit() {
+        assertBadRequest(-5);
+    }
+
+    @Test
+    void rejectsALimitAboveTheMaximum() {
+        assertBadRequest(1001);
+        assertBadRequest(100_000_000);
+    }
+
+    private static void assertBadRequest(int limit) {
+        var ex = assertThrows(ResponseStatusException.class, () -> ServiceUtils.checkPageLimit(limit));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+}
@@ -3,12 +3,14 @@
 
 import OpenAPIClientAxios from 'openapi-client-axios';
 import openApi from '../../common/openapi.yaml'
+import { trackLedgerOffset } from './utils/ledgerOffset';
 
 const api: OpenAPIClientAxios = new OpenAPIClientAxios({
     definition: openApi as any,
     withServer: { url: '/api' },
 });
 
-api.init();
+// the definition is bundled, so the client can be created synchronously and instrumented before first use
+trackLedgerOffset(api.initSync());
 
 export default api;
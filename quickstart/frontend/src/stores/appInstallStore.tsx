@@ -1,7 +1,7 @@
 // Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
 // SPDX-License-Identifier: 0BSD
 
-import React, { createContext, useContext, useState, useCallback } from 'react';
+import React, { createContext, useContext, useState, useCallback, useRef } from 'react';
 import api from '../api';
 import { generateCommandId } from '../utils/commandId';
 import { useToast } from './toastStore';
@@ -18,6 +18,7 @@ import type {
 } from '../openapi.d.ts';
 import { AppInstallUnified } from '../types';
 import { withErrorHandling } from "../utils/error";
+import { applyChanges, fetchAllPages, fetchListing } from "../utils/pagination";
 
 interface AppInstallState {
     unifiedInstalls: AppInstallUnified[];
@@ -35,15 +36,20 @@ const AppInstallContext = createContext<AppInstallContextType | undefined>(undef
 
 export const AppInstallProvider = ({ children }: { children: React.ReactNode }) => {
     const [unifiedInstalls, setUnifiedInstalls] = useState<AppInstallUnified[]>([]);
+    // AppInstalls as last fetched and the ledger offset they reflect; later refreshes only fetch what changed since
+    const installs = useRef<{ items: ApiAppInstall[]; offset?: number }>({ items: [] });
     const toast = useToast();
 
     const fetchAll = useCallback(
         withErrorHandling(`Fetching AppInstall data`)(async () => {
             const client: Client = await api.getClient();
-            const requestsResponse = await client.listAppInstallRequests();
-            const requests: ApiAppInstallRequest[] = requestsResponse.data;
-            const installsResponse = await client.listAppInstalls();
-            const installs: ApiAppInstall[] = installsResponse.data as ApiAppInstall[];
+            const requests: ApiAppInstallRequest[] = await fetchAllPages((params) => client.listAppInstallRequests(params));
+            if (installs.current.offset === undefined) {
+                installs.current = await fetchListing((params) => client.listAppInstalls(params));
+            } else {
+                const { data: changes } = await client.listAppInstallChanges({ sinceOffset: installs.current.offset });
+                installs.current = { items: applyChanges(installs.current.items, changes), offset: changes.offset };
+            }
 
             const unifiedRequests: AppInstallUnified[] = requests.map((r) => ({
                 status: 'REQUEST',
@@ -53,7 +59,7 @@ export const AppInstallProvider = ({ children }: { children: React.ReactNode })
                 meta: r.meta,
                 numLicensesCreated: 0,
             }));
-            const unifiedInstallRecords: AppInstallUnified[] = installs.map((i) => ({
+            const unifiedInstallRecords: AppInstallUnified[] = installs.current.items.map((i) => ({
                 status: 'INSTALL',
                 contractId: i.contractId,
                 provider: i.provider,
@@ -1,7 +1,7 @@
 // Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
 // SPDX-License-Identifier: 0BSD
 
-import React, { createContext, useContext, useState, useCallback } from 'react';
+import React, { createContext, useContext, useState, useCallback, useRef } from 'react';
 import { useToast } from './toastStore';
 import api from '../api';
 import { generateCommandId } from '../utils/commandId';
@@ -13,6 +13,7 @@ import type {
     Metadata,
 } from '../openapi.d.ts';
 import { withErrorHandling } from "../utils/error";
+import { applyChanges, fetchListing } from "../utils/pagination";
 
 /**
  * The core shape of the License-related application state.
@@ -41,16 +42,26 @@ const LicenseContext = createContext<LicenseContextType | undefined>(undefined);
  */
 export const LicenseProvider = ({ children }: { children: React.ReactNode }) => {
     const [licenses, setLicenses] = useState<License[]>([]);
+    // ledger offset the current licenses reflect; later refreshes only fetch what changed since
+    const offset = useRef<number | undefined>(undefined);
     const toast = useToast();
 
     /**
-     * Fetches all Licenses from the backend, including any associated renewal requests.
+     * Fetches all Licenses from the backend, including any associated renewal requests,
+     * then only the Licenses changed since the previous fetch.
      */
     const fetchLicenses = useCallback(
         withErrorHandling(`Fetching Licenses`)(async () => {
             const client: Client = await api.getClient();
-            const response = await client.listLicenses();
-            setLicenses(response.data);
+            if (offset.current === undefined) {
+                const listing = await fetchListing((params) => client.listLicenses(params));
+                offset.current = listing.offset;
+                setLicenses(listing.items);
+                return;
+            }
+            const { data: changes } = await client.listLicenseChanges({ sinceOffset: offset.current });
+            offset.current = changes.offset;
+            setLicenses((current) => applyChanges(current, changes));
         }), [withErrorHandling, setLicenses, toast]);
 
     /**
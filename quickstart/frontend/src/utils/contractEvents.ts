@@ -0,0 +1,107 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+import { useEffect, useRef } from 'react';
+import { observeLedgerOffset } from './ledgerOffset';
+
+const EVENTS_URL = '/api/events';
+// events of one transaction arrive together; refresh once for all of them
+const REFRESH_DELAY_MS = 100;
+
+interface Subscriber {
+    templates: Set<string>;
+    onChange: () => void;
+    onStatus: (open: boolean) => void;
+}
+
+const subscribers = new Set<Subscriber>();
+let source: EventSource | undefined;
+let open = false;
+
+function setOpen(value: boolean) {
+    open = value;
+    subscribers.forEach((s) => s.onStatus(value));
+}
+
+function dispatch(event: MessageEvent, all: boolean) {
+    const { offset, template } = JSON.parse(event.data);
+    observeLedgerOffset(offset);
+    subscribers.forEach((s) => {
+        if (all || s.templates.has(template)) {
+            s.onChange();
+        }
+    });
+}
+
+function connect() {
+    // one stream per browser tab, shared by all views
+    source = new EventSource(EVENTS_URL, { withCredentials: true });
+    source.onopen = () => setOpen(true);
+    source.onerror = () => {
+        // the browser reconnects by itself unless the backend does not offer the stream at all
+        if (source?.readyState === EventSource.CLOSED) {
+            source = undefined;
+        }
+        setOpen(false);
+    };
+    source.addEventListener('created', (e) => dispatch(e as MessageEvent, false));
+    source.addEventListener('archived', (e) => dispatch(e as MessageEvent, false));
+    source.addEventListener('reset', (e) => dispatch(e as MessageEvent, true));
+}
+
+function subscribe(subscriber: Subscriber): () => void {
+    subscribers.add(subscriber);
+    if (!source) {
+        connect();
+    }
+    subscriber.onStatus(open);
+    return () => {
+        subscribers.delete(subscriber);
+        if (subscribers.size === 0 && source) {
+            source.close();
+            source = undefined;
+            open = false;
+        }
+    };
+}
+
+/**
+ * Calls refresh whenever a contract of one of the given templates visible to the user is created or
+ * archived, as pushed by the backend's event stream. While the stream is unavailable, e.g. because the
+ * backend runs without its read model, refresh is polled every pollIntervalMs instead.
+ */
+export function useContractEvents(templates: string[], refresh: () => void, pollIntervalMs = 5000): void {
+    const refreshRef = useRef(refresh);
+    refreshRef.current = refresh;
+    const templateKey = templates.join(',');
+
+    useEffect(() => {
+        let timeoutId: ReturnType<typeof setTimeout> | undefined;
+        let intervalId: ReturnType<typeof setInterval> | undefined;
+
+        const unsubscribe = subscribe({
+            templates: new Set(templateKey.split(',')),
+            onChange: () => {
+                if (timeoutId === undefined) {
+                    timeoutId = setTimeout(() => {
+                        timeoutId = undefined;
+                        refreshRef.current();
+                    }, REFRESH_DELAY_MS);
+                }
+            },
+            onStatus: (streaming) => {
+                if (streaming && intervalId !== undefined) {
+                    clearInterval(intervalId);
+                    intervalId = undefined;
+                } else if (!streaming && intervalId === undefined) {
+                    intervalId = setInterval(() => refreshRef.current(), pollIntervalMs);
+                }
+            },
+        });
+        return () => {
+            unsubscribe();
+            clearTimeout(timeoutId);
+            clearInterval(intervalId);
+        };
+    }, [templateKey, pollIntervalMs]);
+}
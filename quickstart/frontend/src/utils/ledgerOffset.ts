@@ -0,0 +1,37 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+import type { AxiosInstance } from 'axios';
+
+const LEDGER_OFFSET_HEADER = 'x-ledger-offset';
+
+let offset: number | undefined;
+
+/**
+ * Records a ledger offset the client has seen, e.g. from a contract event, so that subsequent reads
+ * reflect it.
+ */
+export function observeLedgerOffset(value: number): void {
+    if (Number.isSafeInteger(value) && (offset === undefined || value > offset)) {
+        offset = value;
+    }
+}
+
+/**
+ * Makes reads reflect the client's own commands: remembers the highest X-Ledger-Offset returned by a
+ * command and sends it with subsequent GET requests, which the backend then answers only once its
+ * data has caught up with that offset.
+ */
+export function trackLedgerOffset(client: AxiosInstance): void {
+    client.interceptors.response.use((response) => {
+        observeLedgerOffset(Number(response.headers[LEDGER_OFFSET_HEADER]));
+        return response;
+    });
+
+    client.interceptors.request.use((config) => {
+        if (offset !== undefined && (config.method ?? 'get').toLowerCase() === 'get') {
+            config.headers.set(LEDGER_OFFSET_HEADER, String(offset));
+        }
+        return config;
+    });
+}
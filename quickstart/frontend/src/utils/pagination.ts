@@ -0,0 +1,52 @@
+// Copyright (c) 2026, Digital Asset (Switzerland) GmbH and/or its affiliates. All rights reserved.
+// SPDX-License-Identifier: 0BSD
+
+import type { AxiosResponse } from 'axios';
+
+const NEXT_PAGE_TOKEN_HEADER = 'x-next-page-token';
+const LEDGER_OFFSET_HEADER = 'x-ledger-offset';
+
+/**
+ * Follows the X-Next-Page-Token header of a paginated listing until the last page
+ * and returns the concatenated items.
+ */
+export async function fetchAllPages<T>(
+    fetchPage: (params?: { pageToken: string }) => Promise<AxiosResponse<T[]>>
+): Promise<T[]> {
+    return (await fetchListing(fetchPage)).items;
+}
+
+/**
+ * Like fetchAllPages, but also returns the ledger offset the first page reflects, from which
+ * the listing can be kept up to date with applyChanges.
+ */
+export async function fetchListing<T>(
+    fetchPage: (params?: { pageToken: string }) => Promise<AxiosResponse<T[]>>
+): Promise<{ items: T[]; offset?: number }> {
+    const items: T[] = [];
+    let offset: number | undefined;
+    let pageToken: string | undefined;
+    do {
+        const response = await fetchPage(pageToken ? { pageToken } : undefined);
+        items.push(...response.data);
+        if (offset === undefined && response.headers[LEDGER_OFFSET_HEADER]) {
+            offset = Number(response.headers[LEDGER_OFFSET_HEADER]);
+        }
+        pageToken = response.headers[NEXT_PAGE_TOKEN_HEADER];
+    } while (pageToken);
+    return { items, offset };
+}
+
+/**
+ * Applies the result of a changes endpoint to a listing: changed items replace those with
+ * the same contract ID or are appended, then archived contracts are removed.
+ */
+export function applyChanges<T extends { contractId: string }>(
+    items: T[],
+    changes: { changed: T[]; archived: string[] }
+): T[] {
+    const byId = new Map(items.map((item) => [item.contractId, item]));
+    changes.changed.forEach((item) => byId.set(item.contractId, item));
+    changes.archived.forEach((contractId) => byId.delete(contractId));
+    return [...byId.values()];
+}
@@ -5,6 +5,7 @@ import React, { useEffect } from 'react';
 import { useAppInstallStore } from '../stores/appInstallStore';
 import { useUserStore } from '../stores/userStore';
 import type { AppInstallUnified } from '../types';
+import { useContractEvents } from '../utils/contractEvents';
 
 const AppInstallsView: React.FC = () => {
   const {
@@ -20,12 +21,10 @@ const AppInstallsView: React.FC = () => {
   useEffect(() => {
     fetchUser();
     fetchAll();
-    const intervalId = setInterval(() => {
-      fetchAll();
-    }, 5000);
-    return () => clearInterval(intervalId);
   }, [fetchUser, fetchAll]);
 
+  useContractEvents(['AppInstall', 'AppInstallRequest'], fetchAll);
+
   return (
     <div>
       <h2>App Installs</h2>
@@ -7,6 +7,7 @@ import { useUserStore } from '../stores/userStore';
 import LicenseRenewalRequestModal from '../components/LicenseRenewalRequestModal.tsx';
 import LicenseArchiveModal from '../components/LicenseExpireModal.tsx';
 import { formatDateTime } from '../utils/format';
+import { useContractEvents } from '../utils/contractEvents';
 
 import type {
   License,
@@ -35,12 +36,10 @@ const LicensesView: React.FC = () => {
   useEffect(() => {
     fetchUser();
     fetchLicenses();
-    const intervalId = setInterval(() => {
-      fetchLicenses();
-    }, 5000);
-    return () => clearInterval(intervalId);
   }, [fetchUser, fetchLicenses]);
 
+  useContractEvents(['License', 'LicenseRenewalRequest', 'Allocation'], fetchLicenses);
+
   useEffect(() => {
     if (!selectedLicenseId) {
       setSelectedLicense(null);